@@ -0,0 +1,89 @@
+/**
+ * Runs the slow ledger work of the window (reports, saves, aggregations) on background threads and hands the
+ * results back on the FX thread. Work is started under a key: asking for a key whose work is still running returns
+ * the running task instead of starting another one, so repeated clicks cost one computation. Every task can be
+ * cancelled and reports its progress through the usual JavaFX Task properties.
+ */
+
+package com.example.track2success.app;
+
+import com.example.track2success.TaskProgress;
+import javafx.concurrent.Task;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+final class BackgroundTasks {
+
+    // Work to run in the background, told how to report progress and whether it has been cancelled
+    interface Work<T> {
+        T run(TaskProgress progress) throws Exception;
+    }
+
+    private final ExecutorService executor = Executors.newCachedThreadPool(task -> {
+        Thread thread = new Thread(task, "background-task");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Tasks that have not finished yet by key, only touched on the FX thread
+    private final Map<String, Task<?>> running = new HashMap<>();
+    private final Consumer<Throwable> onFailed;
+
+    BackgroundTasks(Consumer<Throwable> onFailed) {
+        this.onFailed = onFailed;
+    }
+
+    //Starting work in the background, or returning the task already running under the same key.
+    //onSucceeded is called on the FX thread with the result.
+    @SuppressWarnings("unchecked")
+    <T> Task<T> submit(String key, Work<T> work, Consumer<T> onSucceeded) {
+        Task<?> current = running.get(key);
+        if (current != null) {
+            return (Task<T>) current;
+        }
+        ProgressTask<T> task = new ProgressTask<>(work);
+        task.setOnSucceeded(e -> {
+            running.remove(key);
+            onSucceeded.accept(task.getValue());
+        });
+        task.setOnFailed(e -> {
+            running.remove(key);
+            onFailed.accept(task.getException());
+        });
+        task.setOnCancelled(e -> running.remove(key));
+        running.put(key, task);
+        executor.execute(task);
+        return task;
+    }
+
+    //Cancelling everything still running
+    void cancelAll() {
+        for (Task<?> task : running.values()) {
+            task.cancel();
+        }
+    }
+
+    // A Task is already told when it is cancelled, so it only has to pass progress on
+    private static final class ProgressTask<T> extends Task<T> implements TaskProgress {
+
+        private final Work<T> work;
+
+        ProgressTask(Work<T> work) {
+            this.work = work;
+        }
+
+        @Override
+        protected T call() throws Exception {
+            return work.run(this);
+        }
+
+        @Override
+        public void update(long done, long total) {
+            updateProgress(done, total);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+/**
+ * Largest-Triangle-Three-Buckets downsampling for line graphs. The points between the first and the last are split
+ * into equal buckets and from each bucket the point forming the largest triangle with the point kept before it and
+ * the average of the next bucket is kept, so peaks and dips survive while a long series shrinks to about one point
+ * per pixel.
+ */
+
+package com.example.track2success.app;
+
+final class Downsampler {
+
+    private Downsampler() {
+    }
+
+    //Picking at most threshold of the first length points (x in increasing order) and returning their indexes
+    static int[] largestTriangleThreeBuckets(double[] x, double[] y, int length, int threshold) {
+        if (threshold >= length || threshold < 3) {
+            int[] all = new int[length];
+            for (int i = 0; i < length; i++) {
+                all[i] = i;
+            }
+            return all;
+        }
+        int[] picked = new int[threshold];
+        double bucketSize = (double) (length - 2) / (threshold - 2);
+        int kept = 0;
+        picked[0] = 0;
+        for (int bucket = 0; bucket < threshold - 2; bucket++) {
+            // Average of the next bucket, the third corner of the triangle
+            int nextStart = (int) ((bucket + 1) * bucketSize) + 1;
+            int nextEnd = Math.min((int) ((bucket + 2) * bucketSize) + 1, length);
+            double averageX = 0;
+            double averageY = 0;
+            for (int i = nextStart; i < nextEnd; i++) {
+                averageX += x[i];
+                averageY += y[i];
+            }
+            averageX /= nextEnd - nextStart;
+            averageY /= nextEnd - nextStart;
+
+            // Point of this bucket with the largest triangle
+            int start = (int) (bucket * bucketSize) + 1;
+            int end = (int) ((bucket + 1) * bucketSize) + 1;
+            double largestArea = -1;
+            int largest = start;
+            for (int i = start; i < end; i++) {
+                double area = Math.abs((x[kept] - averageX) * (y[i] - y[kept]) - (x[kept] - x[i]) * (averageY - y[kept]));
+                if (area > largestArea) {
+                    largestArea = area;
+                    largest = i;
+                }
+            }
+            picked[bucket + 1] = largest;
+            kept = largest;
+        }
+        picked[threshold - 1] = length - 1;
+        return picked;
+    }
+}
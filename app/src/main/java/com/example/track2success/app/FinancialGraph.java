@@ -0,0 +1,192 @@
+/**
+ * The financial trends graph. The daily totals are copied out of the Accountant on the FX thread as plain numbers,
+ * downsampled to about one point per pixel of the chart's width on a background thread, and then handed back to
+ * the FX thread, which only swaps the values of the series' points. refresh() can be called after every change to
+ * the ledger: while one update is being worked out, further calls are folded into a single follow-up update.
+ */
+
+package com.example.track2success.app;
+
+import com.example.track2success.Accountant;
+import com.example.track2success.LedgerMetrics;
+import com.example.track2success.Money;
+import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
+import javafx.concurrent.WorkerStateEvent;
+import javafx.scene.chart.LineChart;
+import javafx.scene.chart.NumberAxis;
+import javafx.scene.chart.XYChart;
+import javafx.util.StringConverter;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+final class FinancialGraph {
+
+    private static final DateTimeFormatter AXIS_DATE = DateTimeFormatter.ofPattern("MMM dd yyyy");
+
+    // Numbers the graph windows, so each one works out its updates under its own task key
+    private static final AtomicInteger GRAPHS = new AtomicInteger();
+
+    private final Accountant accountant;
+    private final BackgroundTasks tasks;
+    private final String taskKey = "graph-" + GRAPHS.incrementAndGet();
+    private final LineChart<Number, Number> lineChart;
+    private final XYChart.Series<Number, Number> incomeSeries = new XYChart.Series<>();
+    private final XYChart.Series<Number, Number> expenseSeries = new XYChart.Series<>();
+    private final XYChart.Series<Number, Number> netSavingsSeries = new XYChart.Series<>();
+
+    // Only touched on the FX thread: whether an update is being worked out, and whether another one was asked for
+    private boolean updating;
+    private boolean updateAgain;
+
+    //Drawing the graph of an accountant, working out its points on the background tasks
+    FinancialGraph(Accountant accountant, BackgroundTasks tasks) {
+        this.accountant = accountant;
+        this.tasks = tasks;
+
+        // Dates are epoch days on a number axis, so a long history does not need a category per day
+        NumberAxis xAxis = new NumberAxis();
+        xAxis.setLabel("Date");
+        xAxis.setForceZeroInRange(false);
+        xAxis.setTickLabelFormatter(new StringConverter<Number>() {
+            @Override
+            public String toString(Number day) {
+                return LocalDate.ofEpochDay(day.longValue()).format(AXIS_DATE);
+            }
+
+            @Override
+            public Number fromString(String text) {
+                return LocalDate.parse(text, AXIS_DATE).toEpochDay();
+            }
+        });
+
+        NumberAxis yAxis = new NumberAxis();
+        yAxis.setLabel("Amount ($)");
+        yAxis.setAutoRanging(true);
+
+        lineChart = new LineChart<>(xAxis, yAxis);
+        lineChart.setTitle("Financial Trends Simanta Limbu: 50300556");
+        lineChart.setAnimated(false);
+        lineChart.setCreateSymbols(false);
+
+        // Series for Income, Expenses, and Net Savings
+        incomeSeries.setName("Income");
+        expenseSeries.setName("Expenses");
+        netSavingsSeries.setName("Net Savings");
+        lineChart.getData().add(incomeSeries);
+        lineChart.getData().add(expenseSeries);
+        lineChart.getData().add(netSavingsSeries);
+
+        // Picking the points again when the chart gets wider or narrower
+        lineChart.widthProperty().addListener((obs, oldWidth, newWidth) -> refresh());
+        refresh();
+    }
+
+    LineChart<Number, Number> getChart() {
+        return lineChart;
+    }
+
+    //Bringing the graph up to date with the accountant, must be called on the FX thread
+    void refresh() {
+        if (updating) {
+            updateAgain = true;
+            return;
+        }
+        updating = true;
+        long[] incomes = accountant.sortedDailyTotals(false);
+        long[] expenses = accountant.sortedDailyTotals(true);
+        int threshold = Math.max(3, (int) lineChart.getWidth());
+        Task<List<List<XYChart.Data<Number, Number>>>> task = tasks.submit(taskKey, progress -> {
+            WindowEvents.GraphBuild event = new WindowEvents.GraphBuild();
+            event.begin();
+            long start = System.nanoTime();
+            long[] net = netSavings(incomes, expenses);
+            List<List<XYChart.Data<Number, Number>>> points = Arrays.asList(downsample(incomes, threshold),
+                    downsample(expenses, threshold), downsample(net, threshold));
+            LedgerMetrics.GRAPH_BUILD.recordSince(start);
+            event.days = net.length / 2;
+            event.points = points.get(0).size() + points.get(1).size() + points.get(2).size();
+            event.commit();
+            return points;
+        }, points -> {
+            setPoints(incomeSeries, points.get(0));
+            setPoints(expenseSeries, points.get(1));
+            setPoints(netSavingsSeries, points.get(2));
+            updating = false;
+            if (updateAgain) {
+                updateAgain = false;
+                refresh();
+            }
+        });
+        // The tasks report a failure themselves, the graph only has to take updates again
+        task.addEventHandler(WorkerStateEvent.WORKER_STATE_FAILED, e -> stopUpdating());
+        task.addEventHandler(WorkerStateEvent.WORKER_STATE_CANCELLED, e -> stopUpdating());
+    }
+
+    private void stopUpdating() {
+        updating = false;
+        updateAgain = false;
+    }
+
+    //Merging the sorted day/cents pairs of incomes and expenses into the net of every day that has either
+    private static long[] netSavings(long[] incomes, long[] expenses) {
+        long[] net = new long[incomes.length + expenses.length];
+        int i = 0, e = 0, count = 0;
+        while (i < incomes.length || e < expenses.length) {
+            long day;
+            long cents = 0;
+            if (e == expenses.length || (i < incomes.length && incomes[i] <= expenses[e])) {
+                day = incomes[i];
+            } else {
+                day = expenses[e];
+            }
+            if (i < incomes.length && incomes[i] == day) {
+                cents += incomes[i + 1];
+                i += 2;
+            }
+            if (e < expenses.length && expenses[e] == day) {
+                cents -= expenses[e + 1];
+                e += 2;
+            }
+            net[count++] = day;
+            net[count++] = cents;
+        }
+        return Arrays.copyOf(net, count);
+    }
+
+    //Turning day/cents pairs into at most threshold chart points
+    private static List<XYChart.Data<Number, Number>> downsample(long[] pairs, int threshold) {
+        int length = pairs.length / 2;
+        double[] x = new double[length];
+        double[] y = new double[length];
+        for (int i = 0; i < length; i++) {
+            x[i] = pairs[2 * i];
+            y[i] = Money.toDollars(pairs[2 * i + 1]);
+        }
+        int[] picked = Downsampler.largestTriangleThreeBuckets(x, y, length, threshold);
+        List<XYChart.Data<Number, Number>> points = new ArrayList<>(picked.length);
+        for (int index : picked) {
+            points.add(new XYChart.Data<>(pairs[2 * index], y[index]));
+        }
+        return points;
+    }
+
+    //Reusing the points already in a series where it can, so only values change when the count stays the same
+    private static void setPoints(XYChart.Series<Number, Number> series, List<XYChart.Data<Number, Number>> points) {
+        ObservableList<XYChart.Data<Number, Number>> data = series.getData();
+        if (data.size() != points.size()) {
+            data.setAll(points);
+            return;
+        }
+        for (int i = 0; i < points.size(); i++) {
+            XYChart.Data<Number, Number> point = data.get(i);
+            point.setXValue(points.get(i).getXValue());
+            point.setYValue(points.get(i).getYValue());
+        }
+    }
+}
@@ -1,4 +1,4 @@
-package com.example.track2success;
+package com.example.track2success.app;
 
 import javafx.fxml.FXML;
 import javafx.scene.control.Label;
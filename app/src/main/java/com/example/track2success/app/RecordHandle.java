@@ -0,0 +1,18 @@
+/**
+ * What the expense and income lists hold for each record: its id in the Accountant and its epoch day, which is all
+ * the lists need to keep themselves in date order. The text shown for a record is asked for by the list cell only
+ * while the record is on screen.
+ */
+
+package com.example.track2success.app;
+
+final class RecordHandle {
+
+    final long id;
+    final int day;
+
+    RecordHandle(long id, int day) {
+        this.id = id;
+        this.day = day;
+    }
+}
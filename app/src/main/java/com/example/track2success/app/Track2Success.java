@@ -0,0 +1,794 @@
+/**
+ * Main application class for Track2Success using JavaFX.
+ * Manages the user interface for tracking expenses and incomes.
+ */
+
+package com.example.track2success.app;
+
+import com.example.track2success.Accountant;
+import com.example.track2success.BudgetAlert;
+import com.example.track2success.BudgetRule;
+import com.example.track2success.Entertainment;
+import com.example.track2success.Expense;
+import com.example.track2success.Groceries;
+import com.example.track2success.Income;
+import com.example.track2success.LedgerMetrics;
+import com.example.track2success.MiscellaneousExpense;
+import com.example.track2success.MiscellaneousIncome;
+import com.example.track2success.Money;
+import com.example.track2success.PeriodUnit;
+import com.example.track2success.Recurrence;
+import com.example.track2success.Salary;
+import com.example.track2success.StatementImporter;
+import com.example.track2success.StockGrowth;
+import com.example.track2success.Utilities;
+import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.beans.property.SimpleLongProperty;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.concurrent.Task;
+import javafx.geometry.Insets;
+import javafx.scene.Scene;
+import javafx.scene.control.*;
+import javafx.scene.layout.*;
+import javafx.scene.text.Font;
+import javafx.stage.FileChooser;
+import javafx.stage.Stage;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public class Track2Success extends Application {
+
+    // Initializing the main Accountant instance to manage financial data
+    private Accountant accountant = new Accountant();
+
+    // Directory holding the saved ledger
+    private static final Path LEDGER_DIRECTORY = Paths.get("track2success-ledger");
+
+    // Latency metrics written next to the ledger once a minute while the window is open
+    private static final Path METRICS_FILE = LEDGER_DIRECTORY.resolve("metrics.txt");
+    private ScheduledExecutorService metricsDump;
+
+    // Creating the UI components for displaying expenses and incomes, holding record handles in date order
+    private ListView<RecordHandle> expenseListView = new ListView<>();
+    private ListView<RecordHandle> incomeListView = new ListView<>();
+
+    // The open graph window, kept up to date as records change; null when it is closed
+    private FinancialGraph graph;
+    private Stage graphStage;
+
+    // Background work of the window, and the bar showing the progress of the latest task
+    private final BackgroundTasks tasks = new BackgroundTasks(e -> showAlert("Error", e.getMessage()));
+    private final ProgressBar taskProgressBar = new ProgressBar(0);
+    private final Button cancelTaskButton = new Button("Cancel");
+    private final HBox taskBox = new HBox(10, taskProgressBar, cancelTaskButton);
+
+    // Budget alerts waiting to be shown; an import can raise many at once, and they are shown together
+    private final List<BudgetAlert> budgetAlerts = new ArrayList<>();
+
+    // Looks once a minute whether the date has changed, so the recurring records due on the new day are listed
+    private ScheduledExecutorService dateWatch;
+    private LocalDate shownDate = LocalDate.now();
+
+    @Override
+    public void start(Stage primaryStage) {
+        SplitPane root = new SplitPane();
+        root.setPadding(new Insets(15));
+
+        // Loading the saved ledger, falling back to an empty in-memory one if it cannot be read
+        try {
+            accountant = Accountant.open(LEDGER_DIRECTORY);
+        } catch (IOException e) {
+            showAlert("Error", "Could not open the saved ledger: " + e.getMessage());
+        }
+        metricsDump = LedgerMetrics.writePeriodically(METRICS_FILE, 1, TimeUnit.MINUTES);
+        accountant.setBudgetListener(this::budgetAlert);
+        refreshListViews();
+        dateWatch = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "date-watch");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dateWatch.scheduleAtFixedRate(() -> Platform.runLater(this::checkDate), 1, 1, TimeUnit.MINUTES);
+
+        setupListViewContextMenu(expenseListView);
+        setupListViewContextMenu(incomeListView);
+
+        // Setting up the left side (Expenses)
+        VBox leftVBox = new VBox(10);
+        leftVBox.setStyle("-fx-background-color: #FFCCCC;"); // Light red background
+        Label expenseLoggerLabel = new Label("Expense Logger");
+        expenseLoggerLabel.setFont(new Font("Arial", 20)); // Set font size and family as desired
+        leftVBox.getChildren().add(expenseLoggerLabel);
+        leftVBox.getChildren().add(createExpenseForm());
+        leftVBox.getChildren().add(expenseListView);
+        VBox.setVgrow(expenseListView, Priority.ALWAYS); // Make the ListView grow as needed
+
+        // Setting up the right side (Incomes)
+        VBox rightVBox = new VBox(10);
+        rightVBox.setStyle("-fx-background-color: #CCFFCC;"); // Light green background
+        Label incomeLoggerLabel = new Label("Income Logger");
+        incomeLoggerLabel.setFont(new Font("Arial", 20)); // Set font size and family as desired
+        rightVBox.getChildren().add(incomeLoggerLabel);
+        rightVBox.getChildren().add(createIncomeForm());
+        rightVBox.getChildren().add(incomeListView);
+        VBox.setVgrow(incomeListView, Priority.ALWAYS); // Make the ListView grow as needed
+
+        // Ensuring the Generate Graph button is at the bottom of the right VBox
+        rightVBox.getChildren().add(new Region()); // This will push the button to the bottom
+        Button generateGraphButton = new Button("Generate Graph");
+        generateGraphButton.setOnAction(e -> generateGraph(primaryStage));
+        rightVBox.getChildren().add(generateGraphButton);
+
+        // Creating an HBox layout with spacing of 10 pixels between children
+        HBox buttonBox = new HBox(10);
+
+        // Creating the "Generate Report" button and setting its action
+        Button generateReportButton = new Button("Generate Report");
+        generateReportButton.setOnAction(e -> generateReport());
+
+        // Creating the "Save Report" button and set its action
+        Button saveReportButton = new Button("Save Report");
+        saveReportButton.setOnAction(e -> saveReport());
+
+        // Creating the "Import CSV" button for loading bank statements
+        Button importButton = new Button("Import CSV");
+        importButton.setOnAction(e -> importStatement(primaryStage));
+
+        // Creating the "Budgets" button for setting spending limits
+        Button budgetsButton = new Button("Budgets");
+        budgetsButton.setOnAction(e -> showBudgets());
+
+        // Creating the "Recurring" button for salaries and bills that come back
+        Button recurringButton = new Button("Recurring");
+        recurringButton.setOnAction(e -> showRecurrences());
+
+        // Adding the buttons to the HBox
+        buttonBox.getChildren().addAll(generateReportButton, saveReportButton, importButton, budgetsButton,
+                recurringButton);
+
+        // Adding the HBox to the left VBox
+        leftVBox.getChildren().add(buttonBox);
+
+        // Progress of background work, only shown while something runs
+        taskBox.setVisible(false);
+        taskBox.managedProperty().bind(taskBox.visibleProperty());
+        leftVBox.getChildren().add(taskBox);
+
+
+
+        // Ensuring equal width for both VBoxes
+        leftVBox.prefWidthProperty().bind(root.widthProperty().multiply(0.5));
+        rightVBox.prefWidthProperty().bind(root.widthProperty().multiply(0.5));
+
+        // Adding both VBoxes to the SplitPane
+        root.getItems().addAll(leftVBox, rightVBox);
+        Scene scene = new Scene(root, 800, 600);
+
+        primaryStage.setTitle("Track2Success -- Simanta Limbu: 50300556");
+        primaryStage.setScene(scene);
+        primaryStage.show();
+    }
+
+    //Writing out the journal before the application exits
+    @Override
+    public void stop() {
+        tasks.cancelAll();
+        if (dateWatch != null) {
+            dateWatch.shutdownNow();
+        }
+        try {
+            accountant.close();
+            if (metricsDump != null) {
+                metricsDump.shutdown();
+                LedgerMetrics.writeTo(METRICS_FILE);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    //Filling both list views from the records the accountant holds, already in date order
+    private void refreshListViews() {
+        expenseListView.getItems().setAll(handles(accountant.expenseIdsByDate()));
+        incomeListView.getItems().setAll(handles(accountant.incomeIdsByDate()));
+    }
+
+    //Adding the recurring records due on a new day and listing them, once the date has changed
+    private void checkDate() {
+        if (LocalDate.now().equals(shownDate)) {
+            return;
+        }
+        shownDate = LocalDate.now();
+        try {
+            accountant.materializeDue();
+        } catch (IOException e) {
+            showAlert("Error", "Could not save the recurring records: " + e.getMessage());
+        }
+        refreshListViews();
+        updateGraph();
+    }
+
+    private List<RecordHandle> handles(long[] ids) {
+        List<RecordHandle> handles = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            handles.add(new RecordHandle(id, (int) accountant.getDate(id).toEpochDay()));
+        }
+        return handles;
+    }
+
+    //Letting the user pick a bank statement CSV and importing it
+    private void importStatement(Stage stage) {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Import Bank Statement");
+        chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV files", "*.csv"));
+        File file = chooser.showOpenDialog(stage);
+        if (file == null) {
+            return;
+        }
+        // Importing in the background, the ledger can still be used meanwhile
+        StatementImporter importer = new StatementImporter(accountant);
+        showProgress(tasks.submit("import", progress -> importer.importFile(file.toPath()), imported -> {
+            refreshListViews();
+            updateGraph();
+            if (importer.getRejectedRows() > 0) {
+                showAlert("Import", "Imported " + imported + " rows, skipped " + importer.getRejectedRows()
+                        + " rows that could not be read.");
+            }
+        }));
+    }
+
+    //Inserting a new record into a date ordered list view, after any records of the same day
+    private void insertSorted(ListView<RecordHandle> listView, RecordHandle handle) {
+        List<RecordHandle> items = listView.getItems();
+        int lo = 0, hi = items.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (items.get(mid).day <= handle.day) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        items.add(lo, handle);
+    }
+
+    //Creating and returning a grid pane for the expense form
+    private GridPane createExpenseForm() {
+        GridPane grid = new GridPane();
+        grid.setHgap(10);
+        grid.setVgap(10);
+
+
+        //Adding form elements to the grid pane
+        Label categoryLabel = new Label("Category:");
+        ComboBox<String> categoryComboBox = new ComboBox<>();
+        categoryComboBox.getItems().addAll("Groceries", "Utilities", "Entertainment", "Miscellaneous");
+
+        Label nameLabel = new Label("Type:");
+        TextField typeField = new TextField();
+
+        Label detailsLabel = new Label("Details:");
+        TextField detailsField = new TextField();
+
+        Label amountLabel = new Label("Amount:");
+        TextField amountField = new TextField();
+
+        Label dateLabel = new Label("Date:");
+        DatePicker datePicker = new DatePicker();
+        datePicker.setValue(LocalDate.now());
+
+        Button addButton = new Button("Add Expense");
+        addButton.setOnAction(e -> {
+            try {
+                String category = categoryComboBox.getValue();
+                String name = typeField.getText();
+                long cents = Money.parse(amountField.getText());
+                LocalDate date = datePicker.getValue();
+                String dateString = date.toString();
+
+                Expense expense = newExpense(category, name, dateString, detailsField.getText());
+                // The amount is set in cents, so it never passes through a double
+                expense.setCents(cents);
+                long id = accountant.addExpense(expense);
+
+                insertSorted(expenseListView, new RecordHandle(id, (int) date.toEpochDay()));
+                updateGraph();
+
+                typeField.clear();
+                detailsField.clear();
+                amountField.clear();
+                datePicker.setValue(LocalDate.now());
+                categoryComboBox.getSelectionModel().clearSelection();
+
+
+                typeField.clear();
+                detailsField.clear();
+
+            } catch (NumberFormatException ex) {
+                showAlert("Error", "Please enter a valid number for the amount.");
+            }
+        });
+
+        grid.add(categoryLabel, 0, 0);
+        grid.add(categoryComboBox, 1, 0);
+        grid.add(nameLabel, 0, 1);
+        grid.add(typeField, 1, 1);
+        grid.add(detailsLabel, 0, 2);
+        grid.add(detailsField, 1, 2);
+        grid.add(amountLabel, 0, 3);
+        grid.add(amountField, 1, 3);
+        grid.add(dateLabel, 0, 4);
+        grid.add(datePicker, 1, 4);
+        grid.add(addButton, 1, 5);
+
+        return grid;
+    }
+
+    // Grid pane creation, similar to the expense form
+    private GridPane createIncomeForm() {
+        GridPane grid = new GridPane();
+        grid.setHgap(10);
+        grid.setVgap(10);
+
+        Label categoryLabel = new Label("Category:");
+        ComboBox<String> categoryComboBox = new ComboBox<>();
+        categoryComboBox.getItems().addAll("Salary", "Stock Growth", "Miscellaneous");
+
+        Label amountLabel = new Label("Amount:");
+        TextField amountField = new TextField();
+
+        Label dateLabel = new Label("Date:");
+        DatePicker datePicker = new DatePicker();
+        datePicker.setValue(LocalDate.now());
+
+        Label detailsLabelInc = new Label("Details:");
+        TextField detailsField = new TextField();
+
+
+        Button addButton = new Button("Add Income");
+        addButton.setOnAction(e -> {
+            try {
+                String category = categoryComboBox.getValue();
+                long cents = Money.parse(amountField.getText());
+                LocalDate date = datePicker.getValue();
+                String dateString = date.toString();
+
+                Income income = newIncome(category, dateString);
+                income.setCents(cents);
+                long id = accountant.addIncome(income);
+
+                insertSorted(incomeListView, new RecordHandle(id, (int) date.toEpochDay()));
+                updateGraph();
+
+                amountField.clear();
+                datePicker.setValue(LocalDate.now());
+                categoryComboBox.getSelectionModel().clearSelection();
+
+
+
+            } catch (NumberFormatException ex) {
+                showAlert("Error", "Please enter a valid number for the amount.");
+            }
+        });
+
+        grid.add(categoryLabel, 0, 0);
+        grid.add(categoryComboBox, 1, 0);
+        grid.add(detailsLabelInc, 0, 2);
+        grid.add(detailsField, 1, 2);
+        grid.add(amountLabel, 0, 4);
+        grid.add(amountField, 1, 4);
+        grid.add(dateLabel, 0, 5);
+        grid.add(datePicker, 1, 5);
+        grid.add(addButton, 1, 6);
+
+        return grid;
+    }
+    //Creating the expense subclass for a category, with the type doubling as the utility or entertainment type
+    private static Expense newExpense(String category, String name, String dateString, String details) {
+        switch (category) {
+            case "Groceries":
+                return new Groceries(name, 0, dateString, category);
+            case "Utilities":
+                return new Utilities(name, 0, dateString, name, category);
+            case "Entertainment":
+                return new Entertainment(name, 0, dateString, name, category);
+            case "Miscellaneous":
+                return new MiscellaneousExpense(name, 0, dateString, details, category);
+            default:
+                return new Expense(name, 0, dateString, category);
+        }
+    }
+
+    //Creating the income subclass for a category
+    private static Income newIncome(String category, String dateString) {
+        switch (category) {
+            case "Salary":
+                return new Salary(0, dateString, category);
+            case "Stock Growth":
+                return new StockGrowth(0, dateString, category);
+            case "Miscellaneous":
+                return new MiscellaneousIncome(0, dateString, category);
+            default:
+                return new Income(0, dateString, category);
+        }
+    }
+
+    //Writing the changed weekly reports in the background
+    private void saveReport() {
+        showProgress(tasks.submit("save-report", progress -> accountant.generateWeeklyReports(Paths.get(""), progress),
+                written -> {
+                }));
+    }
+
+    //Pointing the progress bar and cancel button at a background task
+    private void showProgress(Task<?> task) {
+        taskProgressBar.progressProperty().bind(task.progressProperty());
+        taskBox.visibleProperty().bind(task.runningProperty());
+        cancelTaskButton.setOnAction(e -> task.cancel());
+    }
+
+    //Graph generation, showing the open graph window again if there is one
+    private void generateGraph(Stage stage) {
+        if (graphStage != null) {
+            graphStage.toFront();
+            return;
+        }
+        graph = new FinancialGraph(accountant, tasks);
+
+        Scene graphScene = new Scene(graph.getChart(), 800, 600);
+        graphStage = new Stage();
+        graphStage.setTitle("Financial Graph: Simanta Limbu: 50300556");
+        graphStage.setScene(graphScene);
+        graphStage.setOnHidden(e -> {
+            graph = null;
+            graphStage = null;
+        });
+        graphStage.show();
+    }
+
+    //Redrawing the open graph after the records have changed
+    private void updateGraph() {
+        if (graph != null) {
+            graph.refresh();
+        }
+    }
+
+    //Window listing the budgets, with a form to add one and a context menu to delete one
+    private void showBudgets() {
+        ListView<BudgetRule> budgetList = new ListView<>();
+        budgetList.getItems().setAll(accountant.getBudgets());
+        budgetList.setPrefHeight(150);
+
+        ComboBox<String> categoryComboBox = new ComboBox<>();
+        categoryComboBox.getItems().addAll("All expenses", "Groceries", "Utilities", "Entertainment", "Miscellaneous");
+        categoryComboBox.setValue("All expenses");
+        ComboBox<PeriodUnit> periodComboBox = new ComboBox<>();
+        periodComboBox.getItems().addAll(PeriodUnit.values());
+        periodComboBox.setValue(PeriodUnit.WEEK);
+        TextField limitField = new TextField();
+        limitField.setPromptText("Limit");
+
+        Button addButton = new Button("Add Budget");
+        addButton.setOnAction(e -> {
+            try {
+                String category = categoryComboBox.getValue();
+                BudgetRule rule = new BudgetRule(category.equals("All expenses") ? null : category,
+                        periodComboBox.getValue(), Money.parse(limitField.getText()));
+                accountant.addBudget(rule);
+                budgetList.getItems().setAll(accountant.getBudgets());
+                limitField.clear();
+                // A budget the current period is already over is pointed out straight away
+                LocalDate today = rule.getPeriod().start(LocalDate.now(), accountant.getFirstDayOfWeek());
+                for (BudgetAlert alert : accountant.getOverBudget()) {
+                    if (alert.getRule().equals(rule) && alert.getPeriodStart().equals(today)) {
+                        budgetAlert(alert);
+                    }
+                }
+            } catch (IllegalArgumentException ex) {
+                showAlert("Error", "Please enter a valid amount for the budget.");
+            } catch (IOException ex) {
+                showAlert("Error", "Could not save the budget: " + ex.getMessage());
+            }
+        });
+
+        MenuItem deleteItem = new MenuItem("Delete budget");
+        deleteItem.setOnAction(e -> {
+            BudgetRule rule = budgetList.getSelectionModel().getSelectedItem();
+            if (rule == null) {
+                return;
+            }
+            try {
+                accountant.removeBudget(rule);
+                budgetList.getItems().remove(rule);
+            } catch (IOException ex) {
+                showAlert("Error", "Could not save the budgets: " + ex.getMessage());
+            }
+        });
+        budgetList.setContextMenu(new ContextMenu(deleteItem));
+
+        HBox form = new HBox(10, categoryComboBox, periodComboBox, limitField, addButton);
+        VBox layout = new VBox(10, budgetList, form);
+        layout.setPadding(new Insets(10));
+        Stage budgetStage = new Stage();
+        budgetStage.setTitle("Budgets");
+        budgetStage.setScene(new Scene(layout));
+        budgetStage.show();
+    }
+
+    //Window listing the recurring records, with a form to add one, a context menu to delete one, and the balance
+    //expected on a day once the records scheduled up to it are in
+    private void showRecurrences() {
+        ListView<Recurrence> recurrenceList = new ListView<>();
+        recurrenceList.getItems().setAll(accountant.getRecurrences());
+        recurrenceList.setPrefHeight(150);
+
+        ComboBox<String> sideComboBox = new ComboBox<>();
+        sideComboBox.getItems().addAll("Expense", "Income");
+        sideComboBox.setValue("Income");
+        ComboBox<String> categoryComboBox = new ComboBox<>();
+        categoryComboBox.getItems().addAll("Salary", "Stock Growth", "Miscellaneous");
+        categoryComboBox.setValue("Salary");
+        sideComboBox.setOnAction(e -> {
+            categoryComboBox.getItems().setAll(sideComboBox.getValue().equals("Expense")
+                    ? Arrays.asList("Groceries", "Utilities", "Entertainment", "Miscellaneous")
+                    : Arrays.asList("Salary", "Stock Growth", "Miscellaneous"));
+            categoryComboBox.getSelectionModel().selectFirst();
+        });
+        TextField typeField = new TextField();
+        typeField.setPromptText("Type");
+        TextField amountField = new TextField();
+        amountField.setPromptText("Amount");
+        DatePicker firstPicker = new DatePicker(LocalDate.now());
+        Spinner<Integer> everySpinner = new Spinner<>(1, 52, 2);
+        everySpinner.setPrefWidth(70);
+        ComboBox<PeriodUnit> unitComboBox = new ComboBox<>();
+        unitComboBox.getItems().addAll(PeriodUnit.values());
+        unitComboBox.setValue(PeriodUnit.WEEK);
+        DatePicker untilPicker = new DatePicker();
+        untilPicker.setPromptText("No end");
+
+        DatePicker balancePicker = new DatePicker(LocalDate.now().plusMonths(3));
+        Label balanceLabel = new Label();
+        Runnable showBalance = () -> balanceLabel.setText("Expected balance: "
+                + Money.format(accountant.getProjectedBalance(balancePicker.getValue())));
+        balancePicker.setOnAction(e -> showBalance.run());
+        showBalance.run();
+
+        Button addButton = new Button("Add Recurring");
+        addButton.setOnAction(e -> {
+            try {
+                String category = categoryComboBox.getValue();
+                long cents = Money.parse(amountField.getText());
+                String dateString = firstPicker.getValue().toString();
+                Recurrence recurrence;
+                if (sideComboBox.getValue().equals("Expense")) {
+                    Expense expense = newExpense(category, typeField.getText(), dateString, typeField.getText());
+                    expense.setCents(cents);
+                    recurrence = new Recurrence(expense, unitComboBox.getValue(), everySpinner.getValue(),
+                            untilPicker.getValue());
+                } else {
+                    Income income = newIncome(category, dateString);
+                    income.setCents(cents);
+                    recurrence = new Recurrence(income, unitComboBox.getValue(), everySpinner.getValue(),
+                            untilPicker.getValue());
+                }
+                accountant.addRecurrence(recurrence);
+                recurrenceList.getItems().setAll(accountant.getRecurrences());
+                amountField.clear();
+                typeField.clear();
+                // Occurrences up to today were added to the ledger straight away
+                refreshListViews();
+                updateGraph();
+                showBalance.run();
+            } catch (IllegalArgumentException ex) {
+                showAlert("Error", "Please enter a valid amount and an end after the first date.");
+            } catch (IOException ex) {
+                showAlert("Error", "Could not save the recurring record: " + ex.getMessage());
+            }
+        });
+
+        MenuItem deleteItem = new MenuItem("Delete recurring record");
+        deleteItem.setOnAction(e -> {
+            Recurrence recurrence = recurrenceList.getSelectionModel().getSelectedItem();
+            if (recurrence == null) {
+                return;
+            }
+            try {
+                accountant.removeRecurrence(recurrence);
+                recurrenceList.getItems().remove(recurrence);
+                showBalance.run();
+            } catch (IOException ex) {
+                showAlert("Error", "Could not save the recurring records: " + ex.getMessage());
+            }
+        });
+        recurrenceList.setContextMenu(new ContextMenu(deleteItem));
+
+        HBox recordForm = new HBox(10, sideComboBox, categoryComboBox, typeField, amountField);
+        HBox scheduleForm = new HBox(10, new Label("From"), firstPicker, new Label("every"), everySpinner,
+                unitComboBox, new Label("until"), untilPicker, addButton);
+        HBox balanceBox = new HBox(10, new Label("On"), balancePicker, balanceLabel);
+        VBox layout = new VBox(10, recurrenceList, recordForm, scheduleForm, balanceBox);
+        layout.setPadding(new Insets(10));
+        Stage recurrenceStage = new Stage();
+        recurrenceStage.setTitle("Recurring Records");
+        recurrenceStage.setScene(new Scene(layout));
+        recurrenceStage.show();
+    }
+
+    //Queueing a budget alert from whichever thread added the expense, and showing the queued ones on the FX thread
+    private void budgetAlert(BudgetAlert alert) {
+        synchronized (budgetAlerts) {
+            budgetAlerts.add(alert);
+            if (budgetAlerts.size() > 1) {
+                return;
+            }
+        }
+        Platform.runLater(this::showBudgetAlerts);
+    }
+
+    //Showing every queued budget alert in one window, the latest ten in full
+    private void showBudgetAlerts() {
+        List<BudgetAlert> alerts;
+        synchronized (budgetAlerts) {
+            alerts = new ArrayList<>(budgetAlerts);
+            budgetAlerts.clear();
+        }
+        StringBuilder message = new StringBuilder();
+        for (BudgetAlert alert : alerts.subList(Math.max(0, alerts.size() - 10), alerts.size())) {
+            message.append(alert).append('\n');
+        }
+        if (alerts.size() > 10) {
+            message.append("and ").append(alerts.size() - 10).append(" more periods over budget");
+        }
+        Alert window = new Alert(Alert.AlertType.WARNING);
+        window.setTitle("Over Budget");
+        window.setHeaderText(null);
+        window.setContentText(message.toString().trim());
+        window.show();
+    }
+
+    //Shows error alert when the user inputs non numeric amount for the amount field
+    private void showAlert(String title, String message) {
+        Alert alert = new Alert(Alert.AlertType.ERROR);
+        alert.setTitle(title);
+        alert.setHeaderText(null);
+        alert.setContentText(message);
+        alert.showAndWait();
+    }
+
+    //Context menu creation for the list view of income and expenses. The description of a record is only
+    //formatted when a cell shows it.
+    private void setupListViewContextMenu(ListView<RecordHandle> listView) {
+        listView.setCellFactory(lv -> {
+            ContextMenu contextMenu = new ContextMenu();
+            MenuItem deleteItem = new MenuItem();
+            contextMenu.getItems().add(deleteItem);
+
+            ListCell<RecordHandle> cell = new ListCell<RecordHandle>() {
+                @Override
+                protected void updateItem(RecordHandle item, boolean empty) {
+                    super.updateItem(item, empty);
+                    if (empty || item == null) {
+                        setText(null);
+                        setContextMenu(null);
+                    } else {
+                        String description = accountant.describe(item.id);
+                        setText(description);
+                        deleteItem.setText("Delete \"" + description + "\"");
+                        setContextMenu(contextMenu);
+                    }
+                }
+            };
+
+            deleteItem.setOnAction(event -> {
+                RecordHandle item = cell.getItem();
+                listView.getItems().remove(cell.getIndex());
+                accountant.remove(item.id);
+                updateGraph();
+            });
+            return cell;
+        });
+    }
+
+    //Report generation
+    private void generateReport() {
+        // Asking the accountant for each breakdown once in the background and reusing it for the tables and totals
+        showProgress(tasks.submit("report",
+                progress -> Arrays.asList(accountant.getTotalExpensesByCategory(), accountant.getTotalIncomeByCategory()),
+                totals -> showReport(totals.get(0), totals.get(1))));
+    }
+
+    //Showing the report window for the category totals
+    private void showReport(Map<String, Long> expensesByCategory, Map<String, Long> incomeByCategory) {
+        WindowEvents.ReportBuild event = new WindowEvents.ReportBuild();
+        event.begin();
+        long start = System.nanoTime();
+        Stage reportStage = new Stage();
+        VBox reportLayout = new VBox(10);
+        reportLayout.setPadding(new Insets(10));
+        reportLayout.setStyle("-fx-background-color: white;"); // Set a neutral background
+
+
+        // Create a table for expenses
+        TableView<Map.Entry<String, Long>> expenseTable = createCategoryTable("Expense Breakdown", expensesByCategory);
+        // Create a table for income
+        TableView<Map.Entry<String, Long>> incomeTable = createCategoryTable("Income Breakdown", incomeByCategory);
+
+        // Calculate net savings
+        long totalIncome = incomeByCategory.values().stream().mapToLong(Long::longValue).sum();
+        long totalExpenses = expensesByCategory.values().stream().mapToLong(Long::longValue).sum();
+        long netSavings = totalIncome - totalExpenses;
+
+        // Create labels for totals with dynamic color for net savings
+        Label totalIncomeLabel = new Label("Total Income: " + Money.format(totalIncome));
+        Label totalExpensesLabel = new Label("Total Expenses: " + Money.format(totalExpenses));
+        Label netSavingsLabel = new Label("Net Savings: " + Money.format(netSavings));
+
+        // Style for net savings label
+        String savingsColor = netSavings >= 0 ? "green" : "red";
+        netSavingsLabel.setStyle(String.format("-fx-border-color: %s; -fx-border-width: 2px; -fx-border-radius: 5; " +
+                "-fx-background-radius: 5; -fx-background-color: %1$s; -fx-text-fill: white; " +
+                "-fx-padding: 5;", savingsColor));
+
+        // Add tables and total labels to the report layout
+        reportLayout.getChildren().addAll(expenseTable, totalExpensesLabel, incomeTable, totalIncomeLabel, netSavingsLabel);
+
+        Scene reportScene = new Scene(reportLayout);
+        reportStage.setTitle("Financial Report by Simanta Limbu: 50300556");
+        reportStage.setScene(reportScene);
+        reportStage.show();
+        LedgerMetrics.REPORT_BUILD.recordSince(start);
+        event.categories = expensesByCategory.size() + incomeByCategory.size();
+        event.commit();
+
+    }
+
+    // Helper method to create a styled table for categories for the reporting
+    private TableView<Map.Entry<String, Long>> createCategoryTable(String title, Map<String, Long> data) {
+        TableView<Map.Entry<String, Long>> table = new TableView<>();
+        table.setEditable(false);
+        table.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY); // Make columns fill the space
+        table.setPrefHeight(150); // Set preferred height
+
+        // Defining columns
+        TableColumn<Map.Entry<String, Long>, String> categoryColumn = new TableColumn<>(title);
+        categoryColumn.setCellValueFactory(cd -> new SimpleStringProperty(cd.getValue().getKey()));
+
+        TableColumn<Map.Entry<String, Long>, Number> amountColumn = new TableColumn<>("Amount");
+        amountColumn.setCellValueFactory(cd -> new SimpleLongProperty(cd.getValue().getValue()));
+        // The column holds cents, so it sorts as numbers, and shows them as dollars
+        amountColumn.setCellFactory(column -> new TableCell<>() {
+            @Override
+            protected void updateItem(Number cents, boolean empty) {
+                super.updateItem(cents, empty);
+                setText(empty || cents == null ? null : Money.format(cents.longValue()));
+            }
+        });
+
+        // Adding columns to table
+        table.getColumns().add(categoryColumn);
+        table.getColumns().add(amountColumn);
+
+        // Adding data to table
+        table.getItems().addAll(data.entrySet());
+
+        return table;
+    }
+
+
+    public static void main(String[] args) {
+        launch(args);
+    }
+}
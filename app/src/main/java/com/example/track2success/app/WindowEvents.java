@@ -0,0 +1,39 @@
+/**
+ * Flight Recorder events for the slow, user visible work of the window: building the graph and the report window.
+ * They sit under the same Track2Success category as the ledger's events.
+ */
+
+package com.example.track2success.app;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+final class WindowEvents {
+
+    private WindowEvents() {
+    }
+
+    @Name("com.example.track2success.GraphBuild")
+    @Label("Graph Build")
+    @Category("Track2Success")
+    @Description("Downsampling the daily totals into the points of the financial graph")
+    static final class GraphBuild extends Event {
+        @Label("Days")
+        int days;
+
+        @Label("Points")
+        int points;
+    }
+
+    @Name("com.example.track2success.ReportBuild")
+    @Label("Report Build")
+    @Category("Track2Success")
+    @Description("Building the category report window")
+    static final class ReportBuild extends Event {
+        @Label("Categories")
+        int categories;
+    }
+}
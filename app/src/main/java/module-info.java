@@ -0,0 +1,10 @@
+module com.example.track2success.app {
+    requires com.example.track2success;
+    requires javafx.controls;
+    requires javafx.fxml;
+    requires jdk.jfr;
+
+
+    opens com.example.track2success.app to javafx.fxml;
+    exports com.example.track2success.app;
+}
@@ -0,0 +1,53 @@
+/**
+ * Queries the window makes of a ledger that does not change during the run: the daily totals behind the graph and
+ * the category totals behind the report.
+ */
+
+package com.example.track2success.benchmarks;
+
+import com.example.track2success.Accountant;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms6g", "-Xmx6g"})
+public class LedgerReadBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    int records;
+
+    private Accountant accountant;
+
+    @Setup(Level.Trial)
+    public void buildLedger() {
+        accountant = SyntheticLedger.build(records);
+    }
+
+    @Benchmark
+    public Map<LocalDate, Long> getDailyExpenses() {
+        return accountant.getDailyExpenses();
+    }
+
+    @Benchmark
+    public Map<String, Long> getTotalExpensesByCategory() {
+        return accountant.getTotalExpensesByCategory();
+    }
+}
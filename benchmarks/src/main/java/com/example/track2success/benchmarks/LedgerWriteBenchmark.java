@@ -0,0 +1,101 @@
+/**
+ * Changes to a ledger: adding an expense, taking one away (by its list description and by id) and writing the
+ * weekly reports after a change. The ledger is built again before every iteration so its size stays close to the
+ * records parameter, and the remove and report benchmarks add the record they work on first.
+ */
+
+package com.example.track2success.benchmarks;
+
+import com.example.track2success.Accountant;
+import com.example.track2success.Expense;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms6g", "-Xmx6g"})
+public class LedgerWriteBenchmark {
+
+    // Records added by the benchmarks, made up front so the measurements do not include building them
+    private static final int NEW_RECORDS = 4096;
+
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    int records;
+
+    private Accountant accountant;
+    private Path reportDirectory;
+    private final Expense[] newExpenses = new Expense[NEW_RECORDS];
+    private final String[] newDescriptions = new String[NEW_RECORDS];
+    private int next;
+
+    @Setup(Level.Trial)
+    public void prepareRecords() throws IOException {
+        for (int i = 0; i < NEW_RECORDS; i++) {
+            newExpenses[i] = SyntheticLedger.expense(records + i);
+            newDescriptions[i] = newExpenses[i].getDescription();
+        }
+        reportDirectory = Files.createTempDirectory("track2success-benchmark");
+    }
+
+    @Setup(Level.Iteration)
+    public void buildLedger() throws IOException {
+        accountant = SyntheticLedger.build(records);
+        // Writing every report once, so the report benchmark only writes the week it changed
+        accountant.generateWeeklyReports(reportDirectory);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteReports() throws IOException {
+        try (Stream<Path> files = Files.walk(reportDirectory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    private Expense nextExpense() {
+        next = (next + 1) & (NEW_RECORDS - 1);
+        return newExpenses[next];
+    }
+
+    @Benchmark
+    public long addExpense() {
+        return accountant.addExpense(nextExpense());
+    }
+
+    @Benchmark
+    public void addThenRemoveExpenseByDescription() {
+        accountant.addExpense(nextExpense());
+        accountant.removeExpense(newDescriptions[next]);
+    }
+
+    @Benchmark
+    public boolean addThenRemoveById() {
+        return accountant.remove(accountant.addExpense(nextExpense()));
+    }
+
+    @Benchmark
+    public int addThenGenerateWeeklyReports() throws IOException {
+        accountant.addExpense(nextExpense());
+        return accountant.generateWeeklyReports(reportDirectory);
+    }
+}
@@ -0,0 +1,61 @@
+/**
+ * Builds the ledgers the benchmarks run against: ten years of days, a handful of categories, three expenses to
+ * every income and amounts under $200. The same record number always gives the same record, so every run and
+ * every version measures the same ledger.
+ */
+
+package com.example.track2success.benchmarks;
+
+import com.example.track2success.Accountant;
+import com.example.track2success.Expense;
+import com.example.track2success.Income;
+import com.example.track2success.LedgerBatch;
+
+import java.time.LocalDate;
+
+final class SyntheticLedger {
+
+    private static final String[] EXPENSE_CATEGORIES = {"Groceries", "Utilities", "Entertainment", "Miscellaneous",
+            "Rent", "Transport"};
+    private static final String[] INCOME_CATEGORIES = {"Salary", "Stock Growth", "Miscellaneous"};
+    private static final long FIRST_DAY = LocalDate.of(2014, 1, 1).toEpochDay();
+    private static final int DAYS = 3652;
+    private static final int BATCH_ROWS = 100_000;
+
+    private SyntheticLedger() {
+    }
+
+    //An in-memory ledger holding the given number of records, loaded in batches like an import would
+    static Accountant build(int records) {
+        Accountant accountant = new Accountant();
+        LedgerBatch batch = new LedgerBatch();
+        for (int i = 0; i < records; i++) {
+            if (i % 4 == 3) {
+                batch.addIncome(income(i));
+            } else {
+                batch.addExpense(expense(i));
+            }
+            if (batch.size() == BATCH_ROWS) {
+                accountant.addBatch(batch);
+                batch = new LedgerBatch();
+            }
+        }
+        if (batch.size() > 0) {
+            accountant.addBatch(batch);
+        }
+        return accountant;
+    }
+
+    static Expense expense(int i) {
+        return new Expense("Item " + i % 500, (i * 7919L % 20_000) / 100.0, date(i),
+                EXPENSE_CATEGORIES[i % EXPENSE_CATEGORIES.length]);
+    }
+
+    static Income income(int i) {
+        return new Income((i * 104_729L % 20_000) / 100.0, date(i), INCOME_CATEGORIES[i % INCOME_CATEGORIES.length]);
+    }
+
+    private static String date(int i) {
+        return LocalDate.ofEpochDay(FIRST_DAY + (i * 31L) % DAYS).toString();
+    }
+}
@@ -0,0 +1,1521 @@
+/**
+ * This class manages financial records including expenses, incomes, and daily savings. The main objective
+ * for me to build this class to have a separate class that will do most of the operations such as creating totals
+ * , finding net amounts, keeping list of expenses and income. Sorting, reading and writing files.
+ */
+
+package com.example.track2success;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+public class Accountant {
+
+    // Storing expenses and incomes in columns
+    private LedgerColumns expenses;
+    private LedgerColumns incomes;
+
+    // Ids are shared by expenses and incomes, so an id alone says which record is meant
+    private final AtomicLong nextId = new AtomicLong(1);
+
+    // Categories, names and details are interned once and referenced by id from the columns
+    private CategoryDictionary categories;
+    private StringTable labels;
+
+    // Day, week and month x category totals for expenses and incomes, and the day weeks start on
+    private Rollup dailyExpenses;
+    private Rollup weeklyExpenses;
+    private Rollup monthlyExpenses;
+    private Rollup dailyIncomes;
+    private Rollup weeklyIncomes;
+    private Rollup monthlyIncomes;
+    private volatile DayOfWeek firstDayOfWeek = DayOfWeek.SUNDAY;
+
+    // Date ordered indexes for range queries
+    private TimeIndex expenseIndex;
+    private TimeIndex incomeIndex;
+
+    // Net savings per day for running balances, built on the first balance query
+    private volatile SavingsTree savings;
+
+    // Version raised by every change, the version that last changed each day, and the answers cached against them
+    private long version;
+    private DayVersions expenseChanges = new DayVersions();
+    private DayVersions incomeChanges = new DayVersions();
+    private final QueryCache cache = new QueryCache();
+
+    // Budget rules, checked against the expense totals as expenses are added
+    private final BudgetBook budgets = new BudgetBook();
+    private final BudgetBook.Totals budgetTotals = this::expensesIn;
+
+    // Recurring records, and the moment the next of their occurrences is due (the start of its day in milliseconds,
+    // Long.MAX_VALUE when none is scheduled)
+    private final RecurrenceBook recurrences = new RecurrenceBook();
+    private volatile long recurrenceDueAt = Long.MAX_VALUE;
+
+    // Set when a query added due occurrences but could not save them, thrown from the next sync or materializeDue
+    private volatile IOException recurrenceFailure;
+
+    // Write stripes for adds, the lock guarding everything above, and a lock letting one report run at a time
+    private final LedgerStripe[] stripes = newStripes();
+    private final LedgerStripe.Sink stripeSink = (batch, ids) -> storeBatch(batch, 0, ids, true);
+    private final StampedLock lock = new StampedLock();
+
+    // Held shared while an add is journaled and staged, and exclusively while a snapshot drains the stripes and
+    // starts the journal over, so every staged row is either in the snapshot or still has its journal entry
+    private final StampedLock journalGate = new StampedLock();
+    private final Object reportLock = new Object();
+
+    // Directory, write ahead journal and snapshot generation, only set for an Accountant made with open(dir)
+    private Path directory;
+    private volatile LedgerJournal journal;
+    private long generation;
+    private long journalEntries;
+
+    // File names inside the ledger directory, how long a group commit waits for more entries, and how long a
+    // journal may get before opening the ledger folds it into a new snapshot
+    static final String JOURNAL_FILE = "ledger.journal";
+    static final String SNAPSHOT_FILE = "ledger.snapshot";
+    static final String BUDGETS_FILE = "budgets.csv";
+    static final String RECURRENCES_FILE = "recurring.csv";
+    private static final long JOURNAL_SYNC_MILLIS = 5;
+    private static final long SNAPSHOT_AFTER_ENTRIES = 100_000;
+
+    // Rows a stripe may hold before the thread filling it drains the stripes
+    private static final int STRIPE_ROWS = 4096;
+
+    public Accountant() {
+
+        //Initializing the Accountant with empty columns
+        expenses = new LedgerColumns();
+        incomes = new LedgerColumns();
+        categories = new CategoryDictionary();
+        labels = new StringTable();
+        dailyExpenses = new Rollup();
+        weeklyExpenses = new Rollup();
+        monthlyExpenses = new Rollup();
+        dailyIncomes = new Rollup();
+        weeklyIncomes = new Rollup();
+        monthlyIncomes = new Rollup();
+        expenseIndex = new TimeIndex(expenses, dailyExpenses);
+        incomeIndex = new TimeIndex(incomes, dailyIncomes);
+    }
+
+    //Opening a ledger stored in a directory: loading its snapshot, replaying the journal written after it and
+    //journaling every change from now on
+    public static Accountant open(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        Accountant accountant = new Accountant();
+        Path snapshotFile = directory.resolve(SNAPSHOT_FILE);
+        if (Files.exists(snapshotFile)) {
+            accountant.restore(LedgerSnapshot.read(snapshotFile));
+        }
+        accountant.directory = directory;
+        // The counts are read first, so the occurrences in the journal are counted on top of them
+        Path recurrencesFile = directory.resolve(RECURRENCES_FILE);
+        if (Files.exists(recurrencesFile)) {
+            accountant.recurrences.readFrom(recurrencesFile);
+        }
+        accountant.journal = LedgerJournal.open(directory.resolve(JOURNAL_FILE), accountant.generation,
+                JOURNAL_SYNC_MILLIS, accountant.new Replay());
+        if (accountant.journalEntries >= SNAPSHOT_AFTER_ENTRIES) {
+            accountant.snapshot();
+        }
+        Path budgetsFile = directory.resolve(BUDGETS_FILE);
+        if (Files.exists(budgetsFile)) {
+            for (BudgetRule rule : BudgetBook.readFrom(budgetsFile)) {
+                accountant.budgets.add(rule, accountant.budgetCategory(rule), accountant.expensesPer(rule.getPeriod()));
+            }
+        }
+        if (!accountant.recurrences.isEmpty()) {
+            accountant.materializeDue();
+        }
+        return accountant;
+    }
+
+    private void restore(LedgerSnapshot.Image image) {
+        generation = image.generation;
+        nextId.set(image.nextId);
+        categories = image.categories;
+        labels = image.labels;
+        expenses = image.expenses;
+        incomes = image.incomes;
+        dailyExpenses = image.rollups[0];
+        weeklyExpenses = image.rollups[1];
+        dailyIncomes = image.rollups[2];
+        weeklyIncomes = image.rollups[3];
+        firstDayOfWeek = image.firstDayOfWeek;
+        // Months are not saved, they are rolled up from the days as the ledger opens
+        monthlyExpenses = rollUpAll(dailyExpenses, PeriodUnit.MONTH);
+        monthlyIncomes = rollUpAll(dailyIncomes, PeriodUnit.MONTH);
+        expenseIndex = new TimeIndex(expenses, dailyExpenses);
+        incomeIndex = new TimeIndex(incomes, dailyIncomes);
+        savings = null;
+        version++;
+        expenseChanges = new DayVersions();
+        incomeChanges = new DayVersions();
+        cache.clear();
+    }
+
+    //Saving the whole ledger as a new snapshot and starting the journal over behind it
+    public void snapshot() throws IOException {
+        long stamp = lock.writeLock();
+        try {
+            drain();
+            writeSnapshot();
+        } finally {
+            unlockWrite(stamp);
+        }
+    }
+
+    //Called with the write lock held.
+    private void writeSnapshot() throws IOException {
+        if (journal == null) {
+            throw new IllegalStateException("Only a ledger opened from a directory can be saved as a snapshot");
+        }
+        long gate = journalGate.writeLock();
+        try {
+            drain();
+            journal.sync();
+            // Counts first: a crash before the snapshot replays the journal, whose occurrences they already hold
+            saveRecurrences();
+            LedgerSnapshot.write(directory.resolve(SNAPSHOT_FILE), generation + 1, nextId.get(), firstDayOfWeek,
+                    categories, labels, expenses, incomes,
+                    new Rollup[]{dailyExpenses, weeklyExpenses, dailyIncomes, weeklyIncomes});
+            generation++;
+            journal.rotate(generation);
+            journalEntries = 0;
+        } finally {
+            journalGate.unlockWrite(gate);
+        }
+    }
+
+    //Waiting until every change so far is safely on disk
+    public void sync() throws IOException {
+        LedgerJournal current;
+        long stamp = lock.writeLock();
+        try {
+            drain();
+            if (recurrenceFailure != null) {
+                saveRecurrences();
+            }
+            current = journal;
+        } finally {
+            unlockWrite(stamp);
+        }
+        if (current != null) {
+            current.sync();
+        }
+    }
+
+    //Saving a snapshot if the journal has anything new, then closing the journal.
+    public void close() throws IOException {
+        long stamp = lock.writeLock();
+        try {
+            drain();
+            if (journal != null) {
+                if (journalEntries > 0) {
+                    writeSnapshot();
+                }
+                journal.close();
+                journal = null;
+            }
+        } finally {
+            unlockWrite(stamp);
+        }
+    }
+
+    // Applies journal entries without writing them to the journal again
+    private class Replay implements LedgerJournal.Handler {
+        @Override
+        public void add(byte op, long id, int day, long cents, byte kind, String category, String name, String detail) {
+            if (op == LedgerJournal.ADD_EXPENSE) {
+                storeExpense(id, day, cents, categoryId(category), kind, labels.intern(name), labels.intern(detail));
+            } else {
+                storeIncome(id, day, cents, categoryId(category), kind, labels.intern(detail));
+            }
+            nextId.accumulateAndGet(id + 1, Math::max);
+            journalEntries++;
+        }
+
+        @Override
+        public void remove(long id) {
+            removeById(id);
+            journalEntries++;
+        }
+
+        @Override
+        public void occurrence(Recurrence recurrence, int day) {
+            recurrences.replayed(recurrence, day);
+        }
+    }
+
+    //Calculating and returning total daily expenses in cents.
+
+    public Map<LocalDate, Long> getDailyExpenses() {
+        return read(() -> cached(wholeLedger(QueryCache.DAILY_TOTALS, QueryCache.EXPENSES),
+                () -> dailyTotals(dailyExpenses), Map::size));
+    }
+
+    // Calculating and returning total daily incomes
+    public Map<LocalDate, Long> getDailyIncomes() {
+        return read(() -> cached(wholeLedger(QueryCache.DAILY_TOTALS, QueryCache.INCOMES),
+                () -> dailyTotals(dailyIncomes), Map::size));
+    }
+
+    //Turning the days of a rollup that still have records into a map
+    private static Map<LocalDate, Long> dailyTotals(Rollup daily) {
+        Map<LocalDate, Long> totals = new HashMap<>();
+        for (int bucket = 0; bucket < daily.bucketCount(); bucket++) {
+            if (daily.rows(bucket) > 0) {
+                totals.put(LocalDate.ofEpochDay(daily.key(bucket)), daily.total(bucket));
+            }
+        }
+        return Collections.unmodifiableMap(totals);
+    }
+
+    //Days that still have expenses (or incomes) and their totals in cents, sorted by day and laid out as pairs:
+    //day, cents, day, cents... Used by the graph, which only needs plain numbers it can work on in the background.
+    public long[] sortedDailyTotals(boolean isExpense) {
+        return read(() -> cached(wholeLedger(QueryCache.SORTED_DAILY_TOTALS,
+                isExpense ? QueryCache.EXPENSES : QueryCache.INCOMES), () -> {
+            Rollup daily = isExpense ? dailyExpenses : dailyIncomes;
+            long[] keys = new long[daily.bucketCount()];
+            int count = 0;
+            for (int bucket = 0; bucket < daily.bucketCount(); bucket++) {
+                if (daily.rows(bucket) > 0) {
+                    keys[count++] = (long) daily.key(bucket) << 32 | bucket;
+                }
+            }
+            Arrays.sort(keys, 0, count);
+            long[] pairs = new long[count * 2];
+            for (int i = 0; i < count; i++) {
+                pairs[2 * i] = keys[i] >> 32;
+                pairs[2 * i + 1] = daily.total((int) keys[i]);
+            }
+            return pairs;
+        }, pairs -> pairs.length / 2));
+    }
+
+    //Adding an expense record and returning its id
+    public long addExpense(Expense expense) {
+        long start = System.nanoTime();
+        LocalDate date = LocalDate.parse(expense.getDate());
+        int day = (int) date.toEpochDay();
+        long cents = expense.getCents();
+        long id = nextId.getAndIncrement();
+        stage(id, true, day, cents, RecordKind.of(expense), expense.getCategory(), expense.getName(),
+                RecordKind.detailOf(expense));
+        LedgerMetrics.ADD.recordSince(start);
+        return id;
+    }
+
+    //Adding an income record and returning its id
+    public long addIncome(Income income) {
+        long start = System.nanoTime();
+        LocalDate date = LocalDate.parse(income.getDate());
+        int day = (int) date.toEpochDay();
+        long cents = income.getCents();
+        long id = nextId.getAndIncrement();
+        stage(id, false, day, cents, RecordKind.of(income), income.getCategory(), null, RecordKind.detailOf(income));
+        LedgerMetrics.ADD.recordSince(start);
+        return id;
+    }
+
+    //Journaling a new row and putting it in the calling thread's stripe, and draining the stripes once that one
+    //gets long.
+    private void stage(long id, boolean isExpense, int day, long cents, byte kind, String category, String name,
+                       String detail) {
+        LedgerMetrics.ROWS_ADDED.increment();
+        LedgerStripe stripe = stripes[(int) Thread.currentThread().getId() & (stripes.length - 1)];
+        int staged;
+        long gate = journalGate.readLock();
+        try {
+            LedgerJournal current = journal;
+            if (current != null) {
+                current.logAdd(isExpense ? LedgerJournal.ADD_EXPENSE : LedgerJournal.ADD_INCOME, id, day, cents,
+                        kind, category, name, detail);
+            }
+            staged = stripe.add(id, isExpense, day, cents, kind, category, name, detail);
+        } finally {
+            journalGate.unlockRead(gate);
+        }
+        // An expense a budget watches is folded in at once, so its rules are checked before the add returns
+        if (staged >= STRIPE_ROWS || isExpense && budgets.watches(category)) {
+            long stamp = lock.writeLock();
+            try {
+                drain();
+            } finally {
+                unlockWrite(stamp);
+            }
+        }
+    }
+
+    //Adding every row of a batch.
+    public long addBatch(LedgerBatch batch) {
+        long start = System.nanoTime();
+        long firstId = nextId.getAndAdd(batch.size());
+        long stamp = lock.writeLock();
+        try {
+            drain();
+            storeBatch(batch, firstId, null, false);
+        } finally {
+            unlockWrite(stamp);
+        }
+        LedgerMetrics.ROWS_ADDED.add(batch.size());
+        LedgerMetrics.ADD_BATCH.recordSince(start);
+        return firstId;
+    }
+
+    //Storing the rows of a batch with the ids given, or with consecutive ids from firstId when ids is null.
+    private void storeBatch(LedgerBatch batch, long firstId, long[] ids, boolean journaled) {
+        short[] categoryIds = categoryIds(batch);
+        version++;
+        LongIntHashMap slots = new LongIntHashMap();
+        long[] keys = new long[64];
+        long[] sums = new long[64];
+        int[] rows = new int[64];
+        int slotCount = 0;
+        for (int row = 0; row < batch.size(); row++) {
+            boolean isExpense = batch.isExpense(row);
+            int day = batch.day(row);
+            long cents = batch.cents(row);
+            short category = categoryIds[row];
+            long id = ids == null ? firstId + row : ids[row];
+            if (journal != null) {
+                journalEntries++;
+                if (!journaled) {
+                    journal.logAdd(isExpense ? LedgerJournal.ADD_EXPENSE : LedgerJournal.ADD_INCOME, id, day,
+                            cents, batch.kind(row), batch.category(row), batch.name(row), batch.detail(row));
+                }
+            }
+            LedgerColumns columns = isExpense ? expenses : incomes;
+            columns.append(id, day, cents, category, batch.kind(row), labels.intern(batch.name(row)),
+                    labels.intern(batch.detail(row)));
+            (isExpense ? expenseIndex : incomeIndex).added(id, day, category, cents);
+
+            // Summing the batch per expense/income, day and category before it touches the rollups
+            long key = (isExpense ? 1L << 48 : 0) | (day & 0xFFFFFFFFL) << 16 | category;
+            int slot = slots.get(key);
+            if (slot < 0) {
+                slot = slotCount++;
+                if (slot == keys.length) {
+                    keys = Arrays.copyOf(keys, slot * 2);
+                    sums = Arrays.copyOf(sums, slot * 2);
+                    rows = Arrays.copyOf(rows, slot * 2);
+                }
+                keys[slot] = key;
+                slots.put(key, slot);
+            }
+            sums[slot] += cents;
+            rows[slot]++;
+        }
+        for (int slot = 0; slot < slotCount; slot++) {
+            boolean isExpense = (keys[slot] >>> 48) != 0;
+            int day = (int) (keys[slot] >>> 16);
+            int category = (int) (keys[slot] & 0xFFFF);
+            rollUp(isExpense, day, category, sums[slot], rows[slot]);
+            saved(day, isExpense ? -sums[slot] : sums[slot]);
+            (isExpense ? expenseChanges : incomeChanges).changed(day, version);
+        }
+    }
+
+    //Folding the rows waiting in every stripe into the ledger, called with the write lock held
+    private void drain() {
+        long start = System.nanoTime();
+        boolean drained = false;
+        for (LedgerStripe stripe : stripes) {
+            if (stripe.size() > 0) {
+                stripe.drainTo(stripeSink);
+                drained = true;
+            }
+        }
+        if (drained) {
+            LedgerMetrics.DRAIN.recordSince(start);
+        }
+    }
+
+    //Draining the stripes if any thread has left rows in them, so a query sees every add that has returned, and
+    //adding the recurring records whose day has arrived since the last were added
+    private void drainPending() {
+        long dueAt = recurrenceDueAt;
+        if (dueAt != Long.MAX_VALUE && System.currentTimeMillis() >= dueAt) {
+            try {
+                materializeDue();
+            } catch (IOException e) {
+                // The rows are in, only saving them failed; a query still answers
+                recurrenceFailure = e;
+            }
+        }
+        for (LedgerStripe stripe : stripes) {
+            if (stripe.size() > 0) {
+                long stamp = lock.writeLock();
+                try {
+                    drain();
+                } finally {
+                    unlockWrite(stamp);
+                }
+                return;
+            }
+        }
+    }
+
+    //Letting go of the write lock, then telling the budget listener of the periods the change took over budget
+    private void unlockWrite(long stamp) {
+        lock.unlockWrite(stamp);
+        budgets.deliver();
+    }
+
+    //Running a query under the read lock
+    private <T> T read(Supplier<T> query) {
+        long start = System.nanoTime();
+        drainPending();
+        long stamp = lock.readLock();
+        try {
+            return query.get();
+        } finally {
+            lock.unlockRead(stamp);
+            LedgerMetrics.QUERY.recordSince(start);
+        }
+    }
+
+    //Running a short query without taking a lock, and again under the read lock if a change landed meanwhile.
+    private <T> T readOptimistic(Supplier<T> query) {
+        long start = System.nanoTime();
+        drainPending();
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                T result = query.get();
+                if (lock.validate(stamp)) {
+                    LedgerMetrics.QUERY.recordSince(start);
+                    return result;
+                }
+            } catch (RuntimeException e) {
+                // Arrays were swapped under the query, the locked read below gives the right answer
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return query.get();
+        } finally {
+            lock.unlockRead(stamp);
+            LedgerMetrics.QUERY.recordSince(start);
+        }
+    }
+
+    //Two stripes per core, rounded up to a power of two
+    private static LedgerStripe[] newStripes() {
+        int count = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() * 2 - 1)) << 1;
+        LedgerStripe[] stripes = new LedgerStripe[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new LedgerStripe();
+        }
+        return stripes;
+    }
+
+    private void storeExpense(long id, int day, long cents, short category, byte kind, int name, int detail) {
+        expenses.append(id, day, cents, category, kind, name, detail);
+        expenseIndex.added(id, day, category, cents);
+        rollUp(true, day, category, cents, 1);
+        saved(day, -cents);
+        expenseChanges.changed(day, ++version);
+    }
+
+    private void storeIncome(long id, int day, long cents, short category, byte kind, int detail) {
+        incomes.append(id, day, cents, category, kind, -1, detail);
+        incomeIndex.added(id, day, category, cents);
+        rollUp(false, day, category, cents, 1);
+        saved(day, cents);
+        incomeChanges.changed(day, ++version);
+    }
+
+    //Updating the daily, weekly and monthly rollups for the cents and rows of a day and category, with rows of -1
+    //and the cents of the record when a record is taken away
+    private void rollUp(boolean isExpense, int day, int category, long cents, int rows) {
+        long sum = rows < 0 ? -cents : cents;
+        (isExpense ? dailyExpenses : dailyIncomes).add(day, category, sum, rows);
+        (isExpense ? weeklyExpenses : weeklyIncomes).add(PeriodUnit.WEEK.start(day, firstDayOfWeek), category, sum,
+                rows);
+        (isExpense ? monthlyExpenses : monthlyIncomes).add(PeriodUnit.MONTH.start(day, firstDayOfWeek), category, sum,
+                rows);
+        if (isExpense && budgets.watches(category)) {
+            budgets.changed(day, category, firstDayOfWeek, budgetTotals);
+        }
+    }
+
+    //Building the stored expenses as objects, only used when a caller really needs them
+    public List<Expense> getExpenses() {
+        return read(() -> {
+            List<Expense> result = new ArrayList<>(expenses.size());
+            for (int row = 0; row < expenses.size(); row++) {
+                result.add(expenseAt(row));
+            }
+            return result;
+        });
+    }
+
+    //Building the stored incomes as objects
+    public List<Income> getIncomes() {
+        return read(() -> {
+            List<Income> result = new ArrayList<>(incomes.size());
+            for (int row = 0; row < incomes.size(); row++) {
+                result.add(incomeAt(row));
+            }
+            return result;
+        });
+    }
+
+    //Looking up one record by id, null if no such expense is stored
+    public Expense getExpense(long id) {
+        return read(() -> {
+            int row = expenses.rowOf(id);
+            return row < 0 ? null : expenseAt(row);
+        });
+    }
+
+    public Income getIncome(long id) {
+        return read(() -> {
+            int row = incomes.rowOf(id);
+            return row < 0 ? null : incomeAt(row);
+        });
+    }
+
+    //Ids of every expense (or income) in date order, oldest first
+    public long[] expenseIdsByDate() {
+        return read(() -> expenses.size() == 0 ? new long[0]
+                : expenseIndex.idsBetween(expenses.minDay(), expenses.maxDay()));
+    }
+
+    public long[] incomeIdsByDate() {
+        return read(() -> incomes.size() == 0 ? new long[0]
+                : incomeIndex.idsBetween(incomes.minDay(), incomes.maxDay()));
+    }
+
+    //Date of a record, null if the id is not in the ledger
+    public LocalDate getDate(long id) {
+        return read(() -> {
+            int row = expenses.rowOf(id);
+            if (row >= 0) {
+                return LocalDate.ofEpochDay(expenses.day(row));
+            }
+            row = incomes.rowOf(id);
+            return row < 0 ? null : LocalDate.ofEpochDay(incomes.day(row));
+        });
+    }
+
+    //First and last day any record was dated, null for an empty ledger.
+    public LocalDate getFirstDate() {
+        return read(() -> {
+            int day = Math.min(expenses.minDay(), incomes.minDay());
+            return day == Integer.MAX_VALUE ? null : LocalDate.ofEpochDay(day);
+        });
+    }
+
+    public LocalDate getLastDate() {
+        return read(() -> {
+            int day = Math.max(expenses.maxDay(), incomes.maxDay());
+            return day == Integer.MIN_VALUE ? null : LocalDate.ofEpochDay(day);
+        });
+    }
+
+    //Rough heap size of the ledger, used by LedgerRegistry to decide how many ledgers it can keep open
+    long estimatedBytes() {
+        return read(() -> expenses.estimatedBytes() + incomes.estimatedBytes() + categories.estimatedBytes()
+                + labels.estimatedBytes() + dailyExpenses.estimatedBytes() + weeklyExpenses.estimatedBytes()
+                + monthlyExpenses.estimatedBytes() + dailyIncomes.estimatedBytes() + weeklyIncomes.estimatedBytes()
+                + monthlyIncomes.estimatedBytes() + expenseIndex.estimatedBytes() + incomeIndex.estimatedBytes()
+                + cache.elements() * 64);
+    }
+
+    //Description of a record as shown in the lists, null if the id is not in the ledger
+    public String describe(long id) {
+        return read(() -> {
+            int row = expenses.rowOf(id);
+            if (row >= 0) {
+                return expenseAt(row).getDescription();
+            }
+            row = incomes.rowOf(id);
+            return row < 0 ? null : incomeAt(row).getDescription();
+        });
+    }
+
+    private Expense expenseAt(int row) {
+        return RecordKind.newExpense(expenses.kind(row), labels.get(expenses.name(row)), expenses.cents(row),
+                LocalDate.ofEpochDay(expenses.day(row)).toString(), labels.get(expenses.detail(row)),
+                categories.get(expenses.category(row)));
+    }
+
+    private Income incomeAt(int row) {
+        return RecordKind.newIncome(incomes.kind(row), incomes.cents(row),
+                LocalDate.ofEpochDay(incomes.day(row)).toString(), labels.get(incomes.detail(row)),
+                categories.get(incomes.category(row)));
+    }
+
+    //Retrieving the net savings of every day that has had a record, worked out from the daily rollups in cents
+    public Map<LocalDate, Long> getDailySavings() {
+        return read(() -> cached(wholeLedger(QueryCache.DAILY_SAVINGS, QueryCache.BOTH), () -> {
+            // Netting the two rollups in primitive arrays, one slot per day
+            LongIntHashMap slots = new LongIntHashMap();
+            int[] days = new int[dailyIncomes.bucketCount() + dailyExpenses.bucketCount()];
+            long[] net = new long[days.length];
+            int count = 0;
+            for (int bucket = 0; bucket < dailyIncomes.bucketCount(); bucket++) {
+                days[count] = dailyIncomes.key(bucket);
+                net[count] = dailyIncomes.total(bucket);
+                slots.put(days[count], count++);
+            }
+            for (int bucket = 0; bucket < dailyExpenses.bucketCount(); bucket++) {
+                int slot = slots.get(dailyExpenses.key(bucket));
+                if (slot < 0) {
+                    slot = count++;
+                    days[slot] = dailyExpenses.key(bucket);
+                    slots.put(days[slot], slot);
+                }
+                net[slot] -= dailyExpenses.total(bucket);
+            }
+            Map<LocalDate, Long> dailySavings = new HashMap<>(count * 2);
+            for (int slot = 0; slot < count; slot++) {
+                dailySavings.put(LocalDate.ofEpochDay(days[slot]), net[slot]);
+            }
+            return Collections.unmodifiableMap(dailySavings);
+        }, Map::size));
+    }
+
+    //Savings accumulated up to and including a day: every income dated on or before it minus every expense
+    public long getBalance(LocalDate date) {
+        int day = (int) date.toEpochDay();
+        if (savings == null) {
+            read(this::savings);
+        }
+        return readOptimistic(() -> savings.balanceThrough(day));
+    }
+
+    //The running balance at the end of every day from one date to another (both included), in date order
+    //(a running balance depends on every day before it, so any change up to the last date renews the answer)
+    public Map<LocalDate, Long> getCumulativeSavings(LocalDate from, LocalDate to) {
+        int first = (int) from.toEpochDay();
+        int last = (int) to.toEpochDay();
+        return read(() -> cached(new QueryCache.Key(QueryCache.CUMULATIVE_SAVINGS, QueryCache.BOTH, first, last, -1, 0),
+                () -> {
+                    long[] balances = savings().balances(first, last);
+                    Map<LocalDate, Long> result = new LinkedHashMap<>();
+                    for (int i = 0; i < balances.length; i++) {
+                        result.put(LocalDate.ofEpochDay(first + i), balances[i]);
+                    }
+                    return Collections.unmodifiableMap(result);
+                }, Map::size));
+    }
+
+    //Building the savings tree from the daily rollups the first time a balance is asked for.
+    private synchronized SavingsTree savings() {
+        if (savings == null) {
+            SavingsTree tree = new SavingsTree();
+            for (int bucket = 0; bucket < dailyIncomes.bucketCount(); bucket++) {
+                tree.add(dailyIncomes.key(bucket), dailyIncomes.total(bucket));
+            }
+            for (int bucket = 0; bucket < dailyExpenses.bucketCount(); bucket++) {
+                tree.add(dailyExpenses.key(bucket), -dailyExpenses.total(bucket));
+            }
+            savings = tree;
+        }
+        return savings;
+    }
+
+    //Keeping the savings tree in step with a change to one day, once it has been built
+    private void saved(int day, long cents) {
+        if (savings != null) {
+            savings.add(day, cents);
+        }
+    }
+
+    //Removing the expense or income with the given id. Returns false if the id is not in the ledger.
+    public boolean remove(long id) {
+        long start = System.nanoTime();
+        long stamp = lock.writeLock();
+        try {
+            drain();
+            return removeById(id);
+        } finally {
+            unlockWrite(stamp);
+            LedgerMetrics.REMOVE.recordSince(start);
+        }
+    }
+
+    private boolean removeById(long id) {
+        int row = expenses.rowOf(id);
+        if (row >= 0) {
+            removeRow(expenses, expenseIndex, row);
+            return true;
+        }
+        row = incomes.rowOf(id);
+        if (row >= 0) {
+            removeRow(incomes, incomeIndex, row);
+            return true;
+        }
+        return false;
+    }
+
+    private void removeRow(LedgerColumns columns, TimeIndex index, int row) {
+        if (journal != null) {
+            journalEntries++;
+            journal.logRemove(columns.id(row));
+        }
+        index.removed(columns.id(row), columns.day(row), columns.category(row), columns.cents(row));
+        LedgerMetrics.ROWS_REMOVED.increment();
+        rollUp(columns == expenses, columns.day(row), columns.category(row), columns.cents(row), -1);
+        saved(columns.day(row), columns == expenses ? columns.cents(row) : -columns.cents(row));
+        (columns == expenses ? expenseChanges : incomeChanges).changed(columns.day(row), ++version);
+        columns.removeSwap(row);
+    }
+
+    // Removing one expense based on its description, as shown in the expense list. Prefer remove(id).
+    public void removeExpense(String description) {
+        long start = System.nanoTime();
+        long stamp = lock.writeLock();
+        try {
+            drain();
+            int row = findRow(expenses, description, r -> expenseAt(r).getDescription());
+            if (row >= 0) {
+                removeRow(expenses, expenseIndex, row);
+            }
+        } finally {
+            unlockWrite(stamp);
+            LedgerMetrics.REMOVE.recordSince(start);
+        }
+    }
+
+    //  Removing one income based on its description
+    public void removeIncome(String description) {
+        long start = System.nanoTime();
+        long stamp = lock.writeLock();
+        try {
+            drain();
+            int row = findRow(incomes, description, r -> incomeAt(r).getDescription());
+            if (row >= 0) {
+                removeRow(incomes, incomeIndex, row);
+            }
+        } finally {
+            unlockWrite(stamp);
+            LedgerMetrics.REMOVE.recordSince(start);
+        }
+    }
+
+    //Finding a row with the date and amount of a description, preferring one whose description is exactly the same
+    private static int findRow(LedgerColumns columns, String description, IntFunction<String> describe) {
+        int day = (int) descriptionDate(description).toEpochDay();
+        long cents = descriptionAmount(description);
+        int candidate = -1;
+        for (int row = 0; row < columns.size(); row++) {
+            if (columns.day(row) == day && columns.cents(row) == cents) {
+                if (describe.apply(row).equals(description)) {
+                    return row;
+                }
+                if (candidate < 0) {
+                    candidate = row;
+                }
+            }
+        }
+        return candidate;
+    }
+
+    // Descriptions end with "Amount: $<amount>, Date: <date>", whatever prefix the subclass puts in front
+    private static LocalDate descriptionDate(String description) {
+        return LocalDate.parse(description.substring(description.lastIndexOf("Date: ") + 6));
+    }
+
+    private static long descriptionAmount(String description) {
+        int start = description.lastIndexOf("Amount: $") + 9;
+        return Money.parse(description, start, description.indexOf(",", start));
+    }
+
+    //Total expenses dated from one day to another (both included), for one category or all when category is null
+    public long sumExpenses(LocalDate from, LocalDate to, String category) {
+        return read(() -> rangeSum(expenseIndex, from, to, category));
+    }
+
+    //Total incomes dated from one day to another, for one category or all when category is null
+    public long sumIncomes(LocalDate from, LocalDate to, String category) {
+        return read(() -> rangeSum(incomeIndex, from, to, category));
+    }
+
+    private long rangeSum(TimeIndex index, LocalDate from, LocalDate to, String category) {
+        int categoryId = category == null ? -1 : categories.find(category);
+        if (category != null && categoryId < 0) {
+            return 0;
+        }
+        return index.sum((int) from.toEpochDay(), (int) to.toEpochDay(), categoryId);
+    }
+
+    //Ids of every expense and income dated from one day to another, in date order
+    public long[] recordsBetween(LocalDate from, LocalDate to) {
+        return read(() -> {
+            long[] expenseIds = expenseIndex.idsBetween((int) from.toEpochDay(), (int) to.toEpochDay());
+            long[] incomeIds = incomeIndex.idsBetween((int) from.toEpochDay(), (int) to.toEpochDay());
+            long[] ids = new long[expenseIds.length + incomeIds.length];
+            int e = 0, i = 0, count = 0;
+            while (e < expenseIds.length || i < incomeIds.length) {
+                boolean takeExpense = i == incomeIds.length || (e < expenseIds.length
+                        && expenses.day(expenses.rowOf(expenseIds[e])) <= incomes.day(incomes.rowOf(incomeIds[i])));
+                ids[count++] = takeExpense ? expenseIds[e++] : incomeIds[i++];
+            }
+            return ids;
+        });
+    }
+
+    //Expenses dated from one day to another in date order, for one category or all when category is null.
+    public List<Expense> expensesBetween(LocalDate from, LocalDate to, String category) {
+        return read(() -> recordsBetween(QueryCache.EXPENSES, expenses, expenseIndex, from, to, category,
+                this::expenseAt));
+    }
+
+    //Incomes dated from one day to another in date order, for one category or all when category is null
+    public List<Income> incomesBetween(LocalDate from, LocalDate to, String category) {
+        return read(() -> recordsBetween(QueryCache.INCOMES, incomes, incomeIndex, from, to, category,
+                this::incomeAt));
+    }
+
+    //Only the ids of the records are cached; the Expense and Income objects can be changed by whoever holds them,
+    //so they are never shared between answers
+    private <T> List<T> recordsBetween(byte side, LedgerColumns columns, TimeIndex index, LocalDate from,
+                                       LocalDate to, String category, IntFunction<T> recordAt) {
+        int categoryId = category == null ? -1 : categories.find(category);
+        if (category != null && categoryId < 0) {
+            return new ArrayList<>();
+        }
+        int first = (int) from.toEpochDay();
+        int last = (int) to.toEpochDay();
+        long[] ids = cached(new QueryCache.Key(QueryCache.RECORDS_BETWEEN, side, first, last, categoryId, 0), () -> {
+            long[] between = index.idsBetween(first, last);
+            if (category == null) {
+                return between;
+            }
+            int count = 0;
+            for (long id : between) {
+                if (columns.category(columns.rowOf(id)) == categoryId) {
+                    between[count++] = id;
+                }
+            }
+            return Arrays.copyOf(between, count);
+        }, found -> found.length);
+        List<T> result = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            result.add(recordAt.apply(columns.rowOf(id)));
+        }
+        return result;
+    }
+
+    // One record handed to visitRecords, straight from the columns
+    interface RecordVisitor {
+        void record(boolean isExpense, int day, long cents, String category, String name, String detail);
+    }
+
+    // The totals of one category in one period handed to visitTotals
+    interface TotalVisitor {
+        void total(int period, String category, long expenses, long incomes);
+    }
+
+    //The last day of a window starting at from that holds about the given number of records, and at least the
+    //first day, but no later than to.
+    int windowEnd(int from, int to, int records) {
+        return read(() -> {
+            long count = 0;
+            int day = from;
+            while (day < to) {
+                count += rowsOn(dailyExpenses, day) + rowsOn(dailyIncomes, day);
+                if (count >= records) {
+                    break;
+                }
+                day++;
+            }
+            return day;
+        });
+    }
+
+    private static int rowsOn(Rollup daily, int day) {
+        int bucket = daily.find(day);
+        return bucket < 0 ? 0 : daily.rows(bucket);
+    }
+
+    //Visiting every record dated in [from, to] in date order, expenses before incomes on the same day, under the
+    //read lock.
+    void visitRecords(int from, int to, RecordVisitor visitor) {
+        read(() -> {
+            long[] expenseIds = expenseIndex.idsBetween(from, to);
+            long[] incomeIds = incomeIndex.idsBetween(from, to);
+            int e = 0, i = 0;
+            while (e < expenseIds.length || i < incomeIds.length) {
+                int expenseRow = e < expenseIds.length ? expenses.rowOf(expenseIds[e]) : -1;
+                int incomeRow = i < incomeIds.length ? incomes.rowOf(incomeIds[i]) : -1;
+                if (incomeRow < 0 || expenseRow >= 0 && expenses.day(expenseRow) <= incomes.day(incomeRow)) {
+                    visitor.record(true, expenses.day(expenseRow), expenses.cents(expenseRow),
+                            categories.get(expenses.category(expenseRow)), labels.get(expenses.name(expenseRow)),
+                            labels.get(expenses.detail(expenseRow)));
+                    e++;
+                } else {
+                    visitor.record(false, incomes.day(incomeRow), incomes.cents(incomeRow),
+                            categories.get(incomes.category(incomeRow)), null, labels.get(incomes.detail(incomeRow)));
+                    i++;
+                }
+            }
+            return null;
+        });
+    }
+
+    //Visiting the expense and income totals of every category in every period of a unit from one day to another
+    //that has records, in date order and category id order, under the read lock.
+    void visitTotals(PeriodUnit unit, int from, int to, TotalVisitor visitor) {
+        read(() -> {
+            int first = unit.start(from, firstDayOfWeek);
+            int last = unit.start(to, firstDayOfWeek);
+            Rollup expenseTotals = periodTotals(true, unit, first, last);
+            Rollup incomeTotals = periodTotals(false, unit, first, last);
+            int[] periods = new int[expenseTotals.bucketCount() + incomeTotals.bucketCount()];
+            int count = 0;
+            for (Rollup totals : new Rollup[]{expenseTotals, incomeTotals}) {
+                for (int bucket = 0; bucket < totals.bucketCount(); bucket++) {
+                    if (totals.key(bucket) >= first && totals.key(bucket) <= last && totals.rows(bucket) > 0) {
+                        periods[count++] = totals.key(bucket);
+                    }
+                }
+            }
+            Arrays.sort(periods, 0, count);
+            for (int p = 0; p < count; p++) {
+                if (p > 0 && periods[p] == periods[p - 1]) {
+                    continue;
+                }
+                int expenseBucket = expenseTotals.find(periods[p]);
+                int incomeBucket = incomeTotals.find(periods[p]);
+                for (int id = 0; id < categories.size(); id++) {
+                    int expenseRows = expenseBucket < 0 ? 0 : expenseTotals.categoryRows(expenseBucket, id);
+                    int incomeRows = incomeBucket < 0 ? 0 : incomeTotals.categoryRows(incomeBucket, id);
+                    if (expenseRows > 0 || incomeRows > 0) {
+                        visitor.total(periods[p], categories.get(id),
+                                expenseRows == 0 ? 0 : expenseTotals.categorySum(expenseBucket, id),
+                                incomeRows == 0 ? 0 : incomeTotals.categorySum(incomeBucket, id));
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
+    //Total expenses of every category with expenses dated from one day to another, sorted by category
+    public Map<String, Long> getExpensesByCategory(LocalDate from, LocalDate to) {
+        return read(() -> rangeCategoryTotals(QueryCache.EXPENSES, expenseIndex, dailyExpenses, from, to));
+    }
+
+    //Total incomes of every category with incomes dated from one day to another, sorted by category
+    public Map<String, Long> getIncomeByCategory(LocalDate from, LocalDate to) {
+        return read(() -> rangeCategoryTotals(QueryCache.INCOMES, incomeIndex, dailyIncomes, from, to));
+    }
+
+    private Map<String, Long> rangeCategoryTotals(byte side, TimeIndex index, Rollup daily, LocalDate from,
+                                                    LocalDate to) {
+        int first = (int) from.toEpochDay();
+        int last = (int) to.toEpochDay();
+        return cached(new QueryCache.Key(QueryCache.CATEGORY_TOTALS, side, first, last, -1, 0), () -> {
+            long[] sums = index.sums(first, last);
+            Map<String, Long> totals = new TreeMap<>();
+            for (int id = 0; id < sums.length; id++) {
+                if (sums[id] != 0 && daily.grandRows(id) > 0) {
+                    totals.put(categories.get(id), sums[id]);
+                }
+            }
+            return Collections.unmodifiableMap(totals);
+        }, Map::size);
+    }
+
+    //Total expenses per day, week, month or year (DAYS, WEEKS, MONTHS or YEARS) from one date to another, for one
+    //category or all when category is null
+    public Map<LocalDate, Long> getExpenseSeries(LocalDate from, LocalDate to, ChronoUnit unit, String category) {
+        return getExpenseSeries(from, to, PeriodUnit.of(unit), category);
+    }
+
+    //Total incomes per day, week, month or year from one date to another, for one category or all when category is
+    //null
+    public Map<LocalDate, Long> getIncomeSeries(LocalDate from, LocalDate to, ChronoUnit unit, String category) {
+        return getIncomeSeries(from, to, PeriodUnit.of(unit), category);
+    }
+
+    //Total expenses per period of a unit from one date to another, for one category or all when category is null.
+    public Map<LocalDate, Long> getExpenseSeries(LocalDate from, LocalDate to, PeriodUnit unit, String category) {
+        return read(() -> series(true, from, to, unit, category));
+    }
+
+    //Total incomes per period of a unit from one date to another, for one category or all when category is null
+    public Map<LocalDate, Long> getIncomeSeries(LocalDate from, LocalDate to, PeriodUnit unit, String category) {
+        return read(() -> series(false, from, to, unit, category));
+    }
+
+    private Map<LocalDate, Long> series(boolean isExpense, LocalDate from, LocalDate to, PeriodUnit unit,
+                                          String category) {
+        int categoryId = category == null ? -1 : categories.find(category);
+        if (category != null && categoryId < 0) {
+            return Collections.emptyMap();
+        }
+        int first = unit.start((int) from.toEpochDay(), firstDayOfWeek);
+        int last = unit.start((int) to.toEpochDay(), firstDayOfWeek);
+        int lastDay = unit.next(last) - 1;
+        byte side = isExpense ? QueryCache.EXPENSES : QueryCache.INCOMES;
+        return cached(new QueryCache.Key(QueryCache.SERIES, side, first, lastDay, categoryId, unit.ordinal()), () -> {
+            Rollup rollup = periodTotals(isExpense, unit, first, last);
+            long[] keys = new long[rollup.bucketCount()];
+            int count = 0;
+            for (int bucket = 0; bucket < rollup.bucketCount(); bucket++) {
+                int key = rollup.key(bucket);
+                int rows = categoryId < 0 ? rollup.rows(bucket) : rollup.categoryRows(bucket, categoryId);
+                if (key >= first && key <= last && rows > 0) {
+                    keys[count++] = (long) key << 32 | bucket;
+                }
+            }
+            Arrays.sort(keys, 0, count);
+            Map<LocalDate, Long> totals = new LinkedHashMap<>();
+            for (int i = 0; i < count; i++) {
+                int bucket = (int) keys[i];
+                long cents = categoryId < 0 ? rollup.total(bucket) : rollup.categorySum(bucket, categoryId);
+                totals.put(LocalDate.ofEpochDay(keys[i] >> 32), cents);
+            }
+            return Collections.unmodifiableMap(totals);
+        }, Map::size);
+    }
+
+    //The totals of one side per period of a unit, holding at least the periods starting from first to last.
+    private Rollup periodTotals(boolean isExpense, PeriodUnit unit, int first, int last) {
+        switch (unit) {
+            case DAY:
+                return isExpense ? dailyExpenses : dailyIncomes;
+            case WEEK:
+                return isExpense ? weeklyExpenses : weeklyIncomes;
+            case MONTH:
+                return isExpense ? monthlyExpenses : monthlyIncomes;
+            default:
+                return (isExpense ? monthlyExpenses : monthlyIncomes).coarsen(unit, firstDayOfWeek, first,
+                        unit.next(last) - 1);
+        }
+    }
+
+    //Rolling a whole rollup up into longer periods
+    private Rollup rollUpAll(Rollup rollup, PeriodUnit unit) {
+        return rollup.coarsen(unit, firstDayOfWeek, Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    //Answering a query from the cache when no day it depends on has changed since the answer was worked out,
+    //otherwise working it out and keeping it.
+    @SuppressWarnings("unchecked")
+    private <T> T cached(QueryCache.Key key, Supplier<T> query, ToLongFunction<T> size) {
+        long changedAt = 0;
+        int from = key.query == QueryCache.CUMULATIVE_SAVINGS ? Integer.MIN_VALUE : key.from;
+        if ((key.sides & QueryCache.EXPENSES) != 0) {
+            changedAt = expenseChanges.latestBetween(from, key.to);
+        }
+        if ((key.sides & QueryCache.INCOMES) != 0) {
+            changedAt = Math.max(changedAt, incomeChanges.latestBetween(from, key.to));
+        }
+        T answer = (T) cache.get(key, changedAt);
+        if (answer == null) {
+            answer = query.get();
+            cache.put(key, answer, version, size.applyAsLong(answer));
+        }
+        return answer;
+    }
+
+    private static QueryCache.Key wholeLedger(byte query, byte sides) {
+        return new QueryCache.Key(query, sides, Integer.MIN_VALUE, Integer.MAX_VALUE, -1, 0);
+    }
+
+    //Generating a map of total expenses by category
+    public Map<String, Long> getTotalExpensesByCategory() {
+        return readOptimistic(() -> categoryTotals(dailyExpenses));
+    }
+
+    //Generating a map of total income by category
+    public Map<String, Long> getTotalIncomeByCategory() {
+        return readOptimistic(() -> categoryTotals(dailyIncomes));
+    }
+
+    //Reading the per category totals kept by a rollup
+    private Map<String, Long> categoryTotals(Rollup rollup) {
+        Map<String, Long> totals = new HashMap<>();
+        for (int id = 0; id < rollup.categoryCount(); id++) {
+            if (rollup.grandRows(id) > 0) {
+                totals.put(categories.get(id), rollup.grandSum(id));
+            }
+        }
+        return totals;
+    }
+
+    //Generating weekly reports and writing them to files in the working directory.
+    public int generateWeeklyReports() {
+        try {
+            return generateWeeklyReports(Paths.get(""));
+        } catch (IOException e) {
+            e.printStackTrace();
+            return 0;
+        }
+    }
+
+    //Generating the changed weekly reports into the given directory
+    public int generateWeeklyReports(Path directory) throws IOException {
+        return generateWeeklyReports(directory, TaskProgress.NONE);
+    }
+
+    //Generating the changed weekly reports, reporting each file written and stopping early when cancelled
+    public int generateWeeklyReports(Path directory, TaskProgress progress) throws IOException {
+        LedgerEvents.WeeklyReports event = new LedgerEvents.WeeklyReports();
+        event.begin();
+        long start = System.nanoTime();
+        int written;
+        synchronized (reportLock) {
+            drainPending();
+            WeeklyReportWriter writer = new WeeklyReportWriter(weeklyExpenses, weeklyIncomes, categories);
+            long stamp = lock.readLock();
+            try {
+                written = writer.write(directory, progress);
+            } finally {
+                lock.unlockRead(stamp);
+                LedgerMetrics.REPORT_WRITE.recordSince(start);
+            }
+            // Marking needs the write lock, a week changed since it was read stays dirty
+            stamp = lock.writeLock();
+            try {
+                writer.markWritten();
+            } finally {
+                unlockWrite(stamp);
+            }
+        }
+        LedgerMetrics.REPORT_FILES_WRITTEN.add(written);
+        event.directory = directory.toString();
+        event.filesWritten = written;
+        event.commit();
+        return written;
+    }
+
+    //Adding a budget rule, unless an equal one is there.
+    public boolean addBudget(BudgetRule rule) throws IOException {
+        long stamp = lock.writeLock();
+        try {
+            drain();
+            boolean added = budgets.add(rule, budgetCategory(rule), expensesPer(rule.getPeriod()));
+            if (added) {
+                saveBudgets();
+            }
+            return added;
+        } finally {
+            unlockWrite(stamp);
+        }
+    }
+
+    public boolean removeBudget(BudgetRule rule) throws IOException {
+        long stamp = lock.writeLock();
+        try {
+            boolean removed = budgets.remove(rule);
+            if (removed) {
+                saveBudgets();
+            }
+            return removed;
+        } finally {
+            unlockWrite(stamp);
+        }
+    }
+
+    public List<BudgetRule> getBudgets() {
+        return read(budgets::rules);
+    }
+
+    //Every period of every budget that is over its limit now
+    public List<BudgetAlert> getOverBudget() {
+        return read(() -> budgets.overBudget(budgetTotals));
+    }
+
+    //Setting who is told when an added expense takes a period over a budget, null for nobody
+    public void setBudgetListener(BudgetListener listener) {
+        budgets.setListener(listener);
+    }
+
+    private void saveBudgets() throws IOException {
+        if (directory != null) {
+            budgets.writeTo(directory.resolve(BUDGETS_FILE));
+        }
+    }
+
+    private int budgetCategory(BudgetRule rule) {
+        return rule.getCategory() == null ? -1 : categoryId(rule.getCategory());
+    }
+
+    //Expense totals per period of a unit over the whole ledger
+    private Rollup expensesPer(PeriodUnit unit) {
+        return unit == PeriodUnit.QUARTER || unit == PeriodUnit.YEAR ? rollUpAll(monthlyExpenses, unit)
+                : periodTotals(true, unit, 0, 0);
+    }
+
+    //Expenses in one period of a unit for a category id, or every category when it is negative, read from the kept
+    //totals: one bucket for a day, week or month, and the months of a quarter or a year
+    private long expensesIn(PeriodUnit unit, int period, int category) {
+        if (unit == PeriodUnit.QUARTER || unit == PeriodUnit.YEAR) {
+            long spent = 0;
+            for (int month = period, end = unit.next(period); month < end; month = PeriodUnit.MONTH.next(month)) {
+                spent += bucketSum(monthlyExpenses, month, category);
+            }
+            return spent;
+        }
+        return bucketSum(periodTotals(true, unit, period, period), period, category);
+    }
+
+    private static long bucketSum(Rollup rollup, int key, int category) {
+        int bucket = rollup.find(key);
+        if (bucket < 0) {
+            return 0;
+        }
+        return category < 0 ? rollup.total(bucket) : rollup.categorySum(bucket, category);
+    }
+
+    //Adding a recurring record unless an equal one is there.
+    public boolean addRecurrence(Recurrence recurrence) throws IOException {
+        long stamp = lock.writeLock();
+        try {
+            drain();
+            boolean added = recurrences.add(recurrence);
+            if (added) {
+                // Saved before its occurrences are journaled, so replay has a recurrence to count them for
+                saveRecurrences();
+                materialize((int) LocalDate.now().toEpochDay());
+                saveRecurrences();
+            }
+            return added;
+        } finally {
+            unlockWrite(stamp);
+        }
+    }
+
+    //Taking a recurrence away. The occurrences already added stay in the ledger and can be removed as records.
+    public boolean removeRecurrence(Recurrence recurrence) throws IOException {
+        long stamp = lock.writeLock();
+        try {
+            boolean removed = recurrences.remove(recurrence);
+            if (removed) {
+                scheduleRecurrences();
+                saveRecurrences();
+            }
+            return removed;
+        } finally {
+            unlockWrite(stamp);
+        }
+    }
+
+    public List<Recurrence> getRecurrences() {
+        return read(recurrences::recurrences);
+    }
+
+    //Adding the occurrences of the recurrences due up to and including today.
+    public int materializeDue() throws IOException {
+        return materializeDue(LocalDate.now());
+    }
+
+    //Adding the occurrences due up to and including a day
+    public int materializeDue(LocalDate today) throws IOException {
+        long stamp = lock.writeLock();
+        try {
+            drain();
+            int added = materialize((int) today.toEpochDay());
+            if (added > 0 || recurrenceFailure != null) {
+                saveRecurrences();
+            }
+            return added;
+        } finally {
+            unlockWrite(stamp);
+        }
+    }
+
+    //Storing the due occurrences as one batch, called with the write lock held.
+    private int materialize(int today) throws IOException {
+        LedgerBatch batch = new LedgerBatch();
+        List<Recurrence> sources = new ArrayList<>();
+        int added = recurrences.due(today, batch, sources);
+        scheduleRecurrences();
+        if (added > 0) {
+            long firstId = nextId.getAndAdd(added);
+            storeBatch(batch, firstId, null, true);
+            LedgerMetrics.ROWS_ADDED.add(added);
+            if (journal != null) {
+                for (int row = 0; row < added; row++) {
+                    journal.logOccurrence(firstId + row, batch.day(row), sources.get(row));
+                }
+                journal.sync();
+            }
+        }
+        return added;
+    }
+
+    //Working out when the next occurrence is due, in the time zone dates are read in
+    private void scheduleRecurrences() {
+        int day = recurrences.nextDue();
+        recurrenceDueAt = day == Integer.MAX_VALUE ? Long.MAX_VALUE
+                : LocalDate.ofEpochDay(day).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private void saveRecurrences() throws IOException {
+        if (directory != null) {
+            recurrences.writeTo(directory.resolve(RECURRENCES_FILE));
+        }
+        recurrenceFailure = null;
+    }
+
+    //Occurrences of the recurring expenses from one date to another (both included) that are not in the ledger
+    //yet, for one category or all when category is null, in date order.
+    public List<Expense> getScheduledExpenses(LocalDate from, LocalDate to, String category) {
+        return read(() -> {
+            List<Expense> scheduled = new ArrayList<>();
+            visitScheduled(true, from, to, category, (recurrence, day) -> scheduled.add(recurrence.expenseOn(day)));
+            scheduled.sort(Comparator.comparing(Expense::getDate));
+            return scheduled;
+        });
+    }
+
+    public List<Income> getScheduledIncomes(LocalDate from, LocalDate to, String category) {
+        return read(() -> {
+            List<Income> scheduled = new ArrayList<>();
+            visitScheduled(false, from, to, category, (recurrence, day) -> scheduled.add(recurrence.incomeOn(day)));
+            scheduled.sort(Comparator.comparing(Income::getDate));
+            return scheduled;
+        });
+    }
+
+    private void visitScheduled(boolean isExpense, LocalDate from, LocalDate to, String category,
+                                RecurrenceBook.Occurrences visitor) {
+        recurrences.visit(isExpense, (int) from.toEpochDay(), (int) to.toEpochDay(), category, visitor);
+    }
+
+    //Expenses per period of a unit from one date to another as the ledger will hold them: the recorded totals of
+    //getExpenseSeries plus the recurring expenses scheduled in those periods
+    public Map<LocalDate, Long> getExpenseForecast(LocalDate from, LocalDate to, PeriodUnit unit, String category) {
+        return read(() -> forecast(true, from, to, unit, category));
+    }
+
+    public Map<LocalDate, Long> getIncomeForecast(LocalDate from, LocalDate to, PeriodUnit unit, String category) {
+        return read(() -> forecast(false, from, to, unit, category));
+    }
+
+    //Adding the scheduled occurrences to the cached series, period by period.
+    private Map<LocalDate, Long> forecast(boolean isExpense, LocalDate from, LocalDate to, PeriodUnit unit,
+                                          String category) {
+        Map<LocalDate, Long> recorded = series(isExpense, from, to, unit, category);
+        int due = recurrences.nextDue();
+        if (due == Integer.MAX_VALUE) {
+            return recorded;
+        }
+        int first = unit.start((int) from.toEpochDay(), firstDayOfWeek);
+        int lastDay = unit.next(unit.start((int) to.toEpochDay(), firstDayOfWeek)) - 1;
+        int scheduledFrom = Math.max(first, unit.start(due, firstDayOfWeek));
+        Map<LocalDate, Long> forecast = new LinkedHashMap<>();
+        Iterator<Map.Entry<LocalDate, Long>> periods = recorded.entrySet().iterator();
+        Map.Entry<LocalDate, Long> entry = periods.hasNext() ? periods.next() : null;
+        while (entry != null && entry.getKey().toEpochDay() < scheduledFrom) {
+            forecast.put(entry.getKey(), entry.getValue());
+            entry = periods.hasNext() ? periods.next() : null;
+        }
+        for (int period = scheduledFrom; period <= lastDay; period = unit.next(period)) {
+            long cents = recurrences.sum(isExpense, period, unit.next(period) - 1, category);
+            if (entry != null && entry.getKey().toEpochDay() == period) {
+                forecast.put(entry.getKey(), entry.getValue() + cents);
+                entry = periods.hasNext() ? periods.next() : null;
+            } else if (cents != 0) {
+                forecast.put(LocalDate.ofEpochDay(period), cents);
+            }
+        }
+        return Collections.unmodifiableMap(forecast);
+    }
+
+    //The balance a day will end with once the recurring records due up to it are in: getBalance plus the scheduled
+    //incomes minus the scheduled expenses.
+    public long getProjectedBalance(LocalDate date) {
+        int day = (int) date.toEpochDay();
+        return read(() -> savings().balanceThrough(day) + recurrences.sum(false, Integer.MIN_VALUE, day, null)
+                - recurrences.sum(true, Integer.MIN_VALUE, day, null));
+    }
+
+    //The day of the week weeks start on, Sunday unless set otherwise
+    public DayOfWeek getFirstDayOfWeek() {
+        return firstDayOfWeek;
+    }
+
+    //Starting weeks on another day of the week.
+    public void setFirstDayOfWeek(DayOfWeek day) throws IOException {
+        long stamp = lock.writeLock();
+        try {
+            drain();
+            if (day == firstDayOfWeek) {
+                return;
+            }
+            firstDayOfWeek = day;
+            weeklyExpenses = rollUpAll(dailyExpenses, PeriodUnit.WEEK);
+            weeklyIncomes = rollUpAll(dailyIncomes, PeriodUnit.WEEK);
+            budgets.recount(PeriodUnit.WEEK, weeklyExpenses);
+            version++;
+            cache.clear();
+            if (journal != null) {
+                writeSnapshot();
+            }
+        } finally {
+            unlockWrite(stamp);
+        }
+    }
+
+    //The epoch day starting the period of a unit that holds an epoch day, with weeks starting as set
+    int periodStart(PeriodUnit unit, int epochDay) {
+        return unit.start(epochDay, firstDayOfWeek);
+    }
+
+    //The category ids of every row of a batch, worked out before the batch changes anything, so a batch bringing
+    //in more categories than a short can number fails as a whole rather than halfway through the columns
+    private short[] categoryIds(LedgerBatch batch) {
+        short[] ids = new short[batch.size()];
+        Set<String> unknown = null;
+        for (int row = 0; row < batch.size(); row++) {
+            String category = batch.category(row) == null ? "" : batch.category(row);
+            int id = categories.find(category);
+            if (id < 0) {
+                if (unknown == null) {
+                    unknown = new HashSet<>();
+                }
+                unknown.add(category);
+            }
+            ids[row] = (short) id;
+        }
+        if (unknown == null) {
+            return ids;
+        }
+        if (categories.size() + unknown.size() - 1 > Short.MAX_VALUE) {
+            throw new IllegalStateException("Too many categories: the batch adds " + unknown.size() + " to "
+                    + categories.size());
+        }
+        for (int row = 0; row < batch.size(); row++) {
+            if (ids[row] < 0) {
+                ids[row] = categoryId(batch.category(row));
+            }
+        }
+        return ids;
+    }
+
+    private short categoryId(String category) {
+        int id = categories.intern(category == null ? "" : category);
+        if (id > Short.MAX_VALUE) {
+            throw new IllegalStateException("Too many categories: " + category);
+        }
+        return (short) id;
+    }
+
+
+}
@@ -0,0 +1,42 @@
+/**
+ * A period in which the expenses watched by a BudgetRule went over its limit, with what had been spent in it by
+ * then.
+ */
+
+package com.example.track2success;
+
+import java.time.LocalDate;
+
+public final class BudgetAlert {
+
+    private final BudgetRule rule;
+    private final LocalDate periodStart;
+    private final long spentCents;
+
+    BudgetAlert(BudgetRule rule, LocalDate periodStart, long spentCents) {
+        this.rule = rule;
+        this.periodStart = periodStart;
+        this.spentCents = spentCents;
+    }
+
+    public BudgetRule getRule() {
+        return rule;
+    }
+
+    //First day of the period that went over
+    public LocalDate getPeriodStart() {
+        return periodStart;
+    }
+
+    public long getSpentCents() {
+        return spentCents;
+    }
+
+    //Reading as the alert is shown to the user
+    @Override
+    public String toString() {
+        return (rule.getCategory() == null ? "All expenses" : rule.getCategory()) + ": " + Money.format(spentCents)
+                + " spent in the " + rule.getPeriod().name().toLowerCase() + " of " + periodStart + ", over the "
+                + Money.format(rule.getLimitCents()) + " budget";
+    }
+}
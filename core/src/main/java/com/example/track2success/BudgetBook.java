@@ -0,0 +1,260 @@
+/**
+ * The budget rules of an Accountant, indexed by the id of the category they watch, so a change to the expenses of
+ * one category only checks the rules on that category and the rules on all expenses.
+ */
+
+package com.example.track2success;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+final class BudgetBook {
+
+    // Reads the expenses of one period of a unit, for a category id or for every category when it is negative
+    interface Totals {
+        long expensesIn(PeriodUnit unit, int period, int category);
+    }
+
+    // A rule, the id of its category (-1 for every expense) and the sorted starts of its periods over the limit
+    private static final class Watch {
+        final BudgetRule rule;
+        final int category;
+        int[] over = new int[4];
+        int overCount;
+
+        Watch(BudgetRule rule, int category) {
+            this.rule = rule;
+            this.category = category;
+        }
+
+        boolean isOver(int period) {
+            return Arrays.binarySearch(over, 0, overCount, period) >= 0;
+        }
+
+        void setOver(int period, boolean isOver) {
+            int index = Arrays.binarySearch(over, 0, overCount, period);
+            if (isOver && index < 0) {
+                index = -index - 1;
+                if (overCount == over.length) {
+                    over = Arrays.copyOf(over, overCount * 2);
+                }
+                System.arraycopy(over, index, over, index + 1, overCount - index);
+                over[index] = period;
+                overCount++;
+            } else if (!isOver && index >= 0) {
+                System.arraycopy(over, index + 1, over, index, overCount - index - 1);
+                overCount--;
+            }
+        }
+    }
+
+    // The rules in the order they were added, and indexed by category id and for every expense
+    private final List<Watch> watches = new ArrayList<>();
+    private Watch[][] byCategory = new Watch[0][];
+    private Watch[] allCategories = new Watch[0];
+
+    // Names of the watched categories, read without the lock when an expense is added
+    private volatile Set<String> watchedNames = Collections.emptySet();
+    private volatile boolean watchingAll;
+
+    // Period and spent amount per unit for the category being checked, each worked out once per change however
+    // many rules share them
+    private final int[] periods = new int[PeriodUnit.values().length];
+    private final long[] spent = new long[periods.length];
+    private final boolean[] known = new boolean[periods.length];
+
+    // Alerts raised under the lock and not yet handed over, and who they go to
+    private final ConcurrentLinkedQueue<BudgetAlert> pending = new ConcurrentLinkedQueue<>();
+    private volatile BudgetListener listener;
+
+    //Adding a rule unless an equal one is there, taking the periods already over its limit from the expense totals
+    //per period of its unit.
+    boolean add(BudgetRule rule, int category, Rollup periods) {
+        for (Watch watch : watches) {
+            if (watch.rule.equals(rule)) {
+                return false;
+            }
+        }
+        Watch watch = new Watch(rule, category);
+        countOver(watch, periods);
+        watches.add(watch);
+        reindex();
+        return true;
+    }
+
+    boolean remove(BudgetRule rule) {
+        for (int i = 0; i < watches.size(); i++) {
+            if (watches.get(i).rule.equals(rule)) {
+                watches.remove(i);
+                reindex();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    List<BudgetRule> rules() {
+        List<BudgetRule> rules = new ArrayList<>(watches.size());
+        for (Watch watch : watches) {
+            rules.add(watch.rule);
+        }
+        return rules;
+    }
+
+    //Every period of every rule that is over the limit now, rule by rule in date order
+    List<BudgetAlert> overBudget(Totals totals) {
+        List<BudgetAlert> alerts = new ArrayList<>();
+        for (Watch watch : watches) {
+            for (int i = 0; i < watch.overCount; i++) {
+                alerts.add(new BudgetAlert(watch.rule, LocalDate.ofEpochDay(watch.over[i]),
+                        totals.expensesIn(watch.rule.getPeriod(), watch.over[i], watch.category)));
+            }
+        }
+        return alerts;
+    }
+
+    //Working out again which periods of the rules of a unit are over, after the periods themselves moved
+    void recount(PeriodUnit unit, Rollup periods) {
+        for (Watch watch : watches) {
+            if (watch.rule.getPeriod() == unit) {
+                watch.overCount = 0;
+                countOver(watch, periods);
+            }
+        }
+    }
+
+    private static void countOver(Watch watch, Rollup periods) {
+        for (int bucket = 0; bucket < periods.bucketCount(); bucket++) {
+            long spent = watch.category < 0 ? periods.total(bucket) : periods.categorySum(bucket, watch.category);
+            if (spent > watch.rule.getLimitCents()) {
+                watch.setOver(periods.key(bucket), true);
+            }
+        }
+    }
+
+    //Whether any rule watches a category id, checked before the totals of an add are looked at
+    boolean watches(int category) {
+        return allCategories.length > 0 || category < byCategory.length && byCategory[category] != null;
+    }
+
+    //Whether any rule watches a category name, checked without the lock
+    boolean watches(String category) {
+        return watchingAll || watchedNames.contains(category == null ? "" : category);
+    }
+
+    //Checking the rules on a category after the expenses of one of its days changed, called under the write lock
+    void changed(int day, int category, DayOfWeek firstDayOfWeek, Totals totals) {
+        if (category < byCategory.length && byCategory[category] != null) {
+            check(byCategory[category], day, firstDayOfWeek, totals);
+        }
+        check(allCategories, day, firstDayOfWeek, totals);
+    }
+
+    //Checking rules that all watch the same category
+    private void check(Watch[] rules, int day, DayOfWeek firstDayOfWeek, Totals totals) {
+        Arrays.fill(known, false);
+        for (Watch watch : rules) {
+            PeriodUnit unit = watch.rule.getPeriod();
+            int u = unit.ordinal();
+            if (!known[u]) {
+                periods[u] = unit.start(day, firstDayOfWeek);
+                spent[u] = totals.expensesIn(unit, periods[u], watch.category);
+                known[u] = true;
+            }
+            boolean over = spent[u] > watch.rule.getLimitCents();
+            if (over != watch.isOver(periods[u])) {
+                watch.setOver(periods[u], over);
+                if (over && listener != null) {
+                    pending.add(new BudgetAlert(watch.rule, LocalDate.ofEpochDay(periods[u]), spent[u]));
+                }
+            }
+        }
+    }
+
+    void setListener(BudgetListener listener) {
+        this.listener = listener;
+    }
+
+    //Handing the queued alerts to the listener, called after the write lock has been let go
+    void deliver() {
+        BudgetAlert alert;
+        while ((alert = pending.poll()) != null) {
+            BudgetListener current = listener;
+            if (current != null) {
+                current.overBudget(alert);
+            }
+        }
+    }
+
+    private void reindex() {
+        int length = 0;
+        for (Watch watch : watches) {
+            length = Math.max(length, watch.category + 1);
+        }
+        Watch[][] index = new Watch[length][];
+        List<Watch> all = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        for (Watch watch : watches) {
+            if (watch.category < 0) {
+                all.add(watch);
+                continue;
+            }
+            Watch[] rules = index[watch.category];
+            rules = rules == null ? new Watch[1] : Arrays.copyOf(rules, rules.length + 1);
+            rules[rules.length - 1] = watch;
+            index[watch.category] = rules;
+            names.add(watch.rule.getCategory());
+        }
+        byCategory = index;
+        allCategories = all.toArray(new Watch[0]);
+        watchedNames = names;
+        watchingAll = !all.isEmpty();
+    }
+
+    // Kept in a small CSV file of category, period and limit in cents, an empty category meaning every expense.
+    void writeTo(Path file) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+            writer.write("category,period,limit\n");
+            for (Watch watch : watches) {
+                BudgetRule rule = watch.rule;
+                writer.write((rule.getCategory() == null ? "" : rule.getCategory()) + "," + rule.getPeriod() + ","
+                        + rule.getLimitCents() + "\n");
+            }
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    static List<BudgetRule> readFrom(Path file) throws IOException {
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        List<BudgetRule> rules = new ArrayList<>();
+        for (String line : lines.subList(Math.min(1, lines.size()), lines.size())) {
+            int limitAt = line.lastIndexOf(',');
+            int periodAt = limitAt < 0 ? -1 : line.lastIndexOf(',', limitAt - 1);
+            if (periodAt < 0) {
+                throw new IOException("Not a budget: " + line);
+            }
+            try {
+                rules.add(new BudgetRule(periodAt == 0 ? null : line.substring(0, periodAt),
+                        PeriodUnit.valueOf(line.substring(periodAt + 1, limitAt)),
+                        Long.parseLong(line.substring(limitAt + 1))));
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Not a budget: " + line, e);
+            }
+        }
+        return rules;
+    }
+}
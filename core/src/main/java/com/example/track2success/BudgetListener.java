@@ -0,0 +1,10 @@
+/**
+ * Told by an Accountant when added expenses take a period over a budget (see BudgetRule).
+ */
+
+package com.example.track2success;
+
+public interface BudgetListener {
+
+    void overBudget(BudgetAlert alert);
+}
@@ -0,0 +1,58 @@
+/**
+ * A spending limit for one category of expenses, or for all of them, per day, week, month, quarter or year, such as
+ * Entertainment up to $200 a week.
+ */
+
+package com.example.track2success;
+
+import java.util.Objects;
+
+public final class BudgetRule {
+
+    // Category the rule watches (null for every expense), the length of its periods and the most it allows
+    private final String category;
+    private final PeriodUnit period;
+    private final long limitCents;
+
+    public BudgetRule(String category, PeriodUnit period, long limitCents) {
+        if (limitCents < 0) {
+            throw new IllegalArgumentException("A budget cannot be negative: " + Money.format(limitCents));
+        }
+        this.category = category;
+        this.period = Objects.requireNonNull(period, "period");
+        this.limitCents = limitCents;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public PeriodUnit getPeriod() {
+        return period;
+    }
+
+    public long getLimitCents() {
+        return limitCents;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof BudgetRule)) {
+            return false;
+        }
+        BudgetRule rule = (BudgetRule) other;
+        return Objects.equals(category, rule.category) && period == rule.period && limitCents == rule.limitCents;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(category, period, limitCents);
+    }
+
+    //Reading as the rule is shown in lists, such as Entertainment: $200.00 per week
+    @Override
+    public String toString() {
+        return (category == null ? "All expenses" : category) + ": " + Money.format(limitCents) + " per "
+                + period.name().toLowerCase();
+    }
+}
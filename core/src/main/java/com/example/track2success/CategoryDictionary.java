@@ -0,0 +1,145 @@
+/**
+ * Dictionary of category names, handing out a dense id for every category the ledger has seen, the built in ones
+ * and any a user makes up alike.
+ */
+
+package com.example.track2success;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+final class CategoryDictionary {
+
+    // Table of ids (-1 for a free slot) hashed by name, kept at most half full, and the names by id
+    private int[] slots = newSlots(64);
+    private String[] names = new String[16];
+    private int size;
+
+    // The name interned last and its id
+    private String last;
+    private int lastId;
+
+    //Returning the id of a category name, adding the name if it has not been seen. Null is stored as -1.
+    int intern(String name) {
+        if (name == null) {
+            return -1;
+        }
+        if (name == last) {
+            return lastId;
+        }
+        int slot = slotOf(name);
+        int id = slots[slot] >= 0 ? slots[slot] : add(name, slot);
+        last = name;
+        lastId = id;
+        return id;
+    }
+
+    //Returning the id of a name held as bytes[from, to) of a statement, adding it if it has not been seen.
+    int intern(byte[] bytes, int from, int to) {
+        int hash = 0;
+        for (int i = from; i < to; i++) {
+            if (bytes[i] < 0) {
+                return intern(new String(bytes, from, to - from, StandardCharsets.UTF_8));
+            }
+            // The same hash String.hashCode() gives the name
+            hash = 31 * hash + bytes[i];
+        }
+        int mask = slots.length - 1;
+        for (int slot = spread(hash) & mask; ; slot = (slot + 1) & mask) {
+            int id = slots[slot];
+            if (id < 0) {
+                return add(new String(bytes, from, to - from, StandardCharsets.US_ASCII), slot);
+            }
+            if (matches(names[id], bytes, from, to)) {
+                return id;
+            }
+        }
+    }
+
+    //Looking up a name without adding it, -1 if it is unknown
+    int find(String name) {
+        return name == null ? -1 : slots[slotOf(name)];
+    }
+
+    String get(int id) {
+        return id < 0 ? null : names[id];
+    }
+
+    int size() {
+        return size;
+    }
+
+    //Rough heap size, taking a name to be about 56 bytes besides its slot and its place in the names
+    long estimatedBytes() {
+        return size * 56L + slots.length * 4L + names.length * 8L;
+    }
+
+    //The slot holding a name, or the free slot where it belongs
+    private int slotOf(String name) {
+        int mask = slots.length - 1;
+        for (int slot = spread(name.hashCode()) & mask; ; slot = (slot + 1) & mask) {
+            int id = slots[slot];
+            if (id < 0 || names[id].equals(name)) {
+                return slot;
+            }
+        }
+    }
+
+    //Giving a new name the next id in the free slot found for it, growing the table first when it gets half full
+    private int add(String name, int slot) {
+        if (size == names.length) {
+            names = Arrays.copyOf(names, size * 2);
+        }
+        names[size] = name;
+        if ((size + 1) * 2 > slots.length) {
+            slots = newSlots(slots.length * 2);
+            for (int id = 0; id < size; id++) {
+                slots[slotOf(names[id])] = id;
+            }
+            slot = slotOf(name);
+        }
+        slots[slot] = size;
+        return size++;
+    }
+
+    private static boolean matches(String name, byte[] bytes, int from, int to) {
+        if (name.length() != to - from) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) != bytes[from + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static int[] newSlots(int length) {
+        int[] slots = new int[length];
+        Arrays.fill(slots, -1);
+        return slots;
+    }
+
+    // Stored in a snapshot the same way as a StringTable: the count, then the names in id order
+    void writeTo(LedgerSnapshot.Output out) throws IOException {
+        out.putInt(size);
+        for (int id = 0; id < size; id++) {
+            out.putString(names[id]);
+        }
+    }
+
+    static CategoryDictionary readFrom(ByteBuffer in) {
+        CategoryDictionary dictionary = new CategoryDictionary();
+        int count = in.getInt();
+        for (int i = 0; i < count; i++) {
+            dictionary.intern(LedgerSnapshot.readString(in));
+        }
+        return dictionary;
+    }
+}
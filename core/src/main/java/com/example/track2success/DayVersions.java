@@ -0,0 +1,84 @@
+/**
+ * The ledger version that last changed each epoch day, so a cached answer about a date range can tell whether any
+ * day in the range changed after it was worked out.
+ */
+
+package com.example.track2success;
+
+final class DayVersions {
+
+    private static final int BLOCK_SHIFT = 6;
+    private static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+
+    // First day covered (a multiple of the block size), the version of each day and of each block, and the latest
+    // version of all
+    private int base;
+    private long[] days = new long[0];
+    private long[] blocks = new long[0];
+    private long latest;
+
+    //Recording that a day changed in the given version
+    void changed(int day, long version) {
+        if (days.length == 0 || day < base || day - base >= days.length) {
+            cover(day);
+        }
+        int index = day - base;
+        days[index] = version;
+        blocks[index >> BLOCK_SHIFT] = version;
+        latest = version;
+    }
+
+    //Latest version of all changes, 0 if nothing changed
+    long latest() {
+        return latest;
+    }
+
+    //Latest version that changed a day in [from, to], 0 if none of them changed
+    long latestBetween(int from, int to) {
+        if (days.length == 0) {
+            return 0;
+        }
+        if (from <= base && (long) to >= (long) base + days.length - 1) {
+            return latest;
+        }
+        int first = (int) Math.max((long) from - base, 0);
+        int last = (int) Math.min((long) to - base, days.length - 1);
+        long version = 0;
+        int index = first;
+        while (index <= last && (index & (BLOCK_SIZE - 1)) != 0) {
+            version = Math.max(version, days[index++]);
+        }
+        while (index + BLOCK_SIZE - 1 <= last) {
+            version = Math.max(version, blocks[index >> BLOCK_SHIFT]);
+            index += BLOCK_SIZE;
+        }
+        while (index <= last) {
+            version = Math.max(version, days[index++]);
+        }
+        return version;
+    }
+
+    //Growing the window to take in a day, keeping a year or half the span as room on the side it grew
+    private void cover(int day) {
+        int oldBase = base;
+        long[] oldDays = days;
+        long[] oldBlocks = blocks;
+        int first = oldDays.length == 0 ? day : Math.min(base, day);
+        int last = oldDays.length == 0 ? day : Math.max(base + oldDays.length - 1, day);
+        int room = Math.max(366, (last - first + 1) / 2);
+        if (oldDays.length == 0 || day < oldBase) {
+            first -= room;
+        }
+        if (oldDays.length == 0 || day >= oldBase + oldDays.length) {
+            last += room;
+        }
+        base = Math.floorDiv(first, BLOCK_SIZE) * BLOCK_SIZE;
+        int blockCount = Math.floorDiv(last, BLOCK_SIZE) - base / BLOCK_SIZE + 1;
+        days = new long[blockCount * BLOCK_SIZE];
+        blocks = new long[blockCount];
+        if (oldDays.length > 0) {
+            System.arraycopy(oldDays, 0, days, oldBase - base, oldDays.length);
+            System.arraycopy(oldBlocks, 0, blocks, (oldBase - base) >> BLOCK_SHIFT, oldBlocks.length);
+        }
+    }
+}
@@ -9,6 +9,10 @@ public class Entertainment extends Expense {
         this.type = type;
     }
 
+    public String getType() {
+        return type;
+    }
+
 
     // Overriding the getDescription method to add details specific to Entertainment
     @Override
@@ -2,14 +2,15 @@ package com.example.track2success;
 
 public class Expense {
     private String name;
-    private double amount;
+    // Amount in whole cents, see Money
+    private long cents;
     private String date;
 
     private String category;
 
     public Expense(String name, double amount, String date, String category) {
         this.name = name;
-        this.amount = amount;
+        this.cents = Money.toCents(amount);
         this.date = date;
         this.category = category;
     }
@@ -20,7 +21,11 @@ public class Expense {
     }
 
     public double getAmount() {
-        return amount;
+        return Money.toDollars(cents);
+    }
+
+    public long getCents() {
+        return cents;
     }
 
     public String getDate() {
@@ -38,7 +43,11 @@ public class Expense {
     }
 
     public void setAmount(double amount) {
-        this.amount = amount;
+        this.cents = Money.toCents(amount);
+    }
+
+    public void setCents(long cents) {
+        this.cents = cents;
     }
 
     public void setDate(String date) {
@@ -51,6 +60,7 @@ public class Expense {
 
     //Providing a string representation of the Expense, detailing the amount and date. We will parse this later for list sorting.
     public String getDescription() {
-        return "Expense: " + name + ", Amount: $" + amount + ", Date: " + date;
+        return "Expense: " + name + ", Amount: $" + Money.appendDecimal(new StringBuilder(16), cents)
+                + ", Date: " + date;
     }
 }
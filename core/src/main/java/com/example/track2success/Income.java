@@ -1,20 +1,25 @@
 package com.example.track2success;
 
 public class Income {
-    private double amount;
+    // Amount in whole cents, see Money
+    private long cents;
     private String date;
 
     private String category;
 
     public Income(double amount, String date, String category) {
-        this.amount = amount;
+        this.cents = Money.toCents(amount);
         this.date = date;
         this.category = category;
     }
 
     // Getters for amount, date and category
     public double getAmount() {
-        return amount;
+        return Money.toDollars(cents);
+    }
+
+    public long getCents() {
+        return cents;
     }
 
     public String getDate() {
@@ -28,7 +33,11 @@ public class Income {
 
     // Setters for amount, date and category
     public void setAmount(double amount) {
-        this.amount = amount;
+        this.cents = Money.toCents(amount);
+    }
+
+    public void setCents(long cents) {
+        this.cents = cents;
     }
 
     public void setDate(String date) {
@@ -41,7 +50,7 @@ public class Income {
 
     //Providing a string representation of the income, detailing the amount and date. We will parse this later for list sorting.
     public String getDescription() {
-        return "Income:  Amount: $" + amount + ", Date: " + date;
+        return "Income:  Amount: $" + Money.appendDecimal(new StringBuilder(16), cents) + ", Date: " + date;
     }
 
 
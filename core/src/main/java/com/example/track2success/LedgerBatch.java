@@ -0,0 +1,84 @@
+/**
+ * A group of expenses and incomes handed to Accountant.addBatch in one go.
+ */
+
+package com.example.track2success;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+public final class LedgerBatch {
+
+    private int size;
+    private boolean[] expense = new boolean[256];
+    private int[] days = new int[256];
+    private long[] cents = new long[256];
+    private byte[] kinds = new byte[256];
+    private String[] categories = new String[256];
+    private String[] names = new String[256];
+    private String[] details = new String[256];
+
+    public int size() {
+        return size;
+    }
+
+    public void addExpense(Expense expense) {
+        add(true, (int) LocalDate.parse(expense.getDate()).toEpochDay(), expense.getCents(),
+                RecordKind.of(expense), expense.getCategory(), expense.getName(), RecordKind.detailOf(expense));
+    }
+
+    public void addIncome(Income income) {
+        add(false, (int) LocalDate.parse(income.getDate()).toEpochDay(), income.getCents(),
+                RecordKind.of(income), income.getCategory(), null, RecordKind.detailOf(income));
+    }
+
+    void add(boolean isExpense, int day, long amountCents, byte kind, String category, String name, String detail) {
+        if (size == days.length) {
+            int length = size * 2;
+            expense = Arrays.copyOf(expense, length);
+            days = Arrays.copyOf(days, length);
+            cents = Arrays.copyOf(cents, length);
+            kinds = Arrays.copyOf(kinds, length);
+            categories = Arrays.copyOf(categories, length);
+            names = Arrays.copyOf(names, length);
+            details = Arrays.copyOf(details, length);
+        }
+        expense[size] = isExpense;
+        days[size] = day;
+        cents[size] = amountCents;
+        kinds[size] = kind;
+        categories[size] = category;
+        names[size] = name;
+        details[size] = detail;
+        size++;
+    }
+
+    // Row accessors for the Accountant
+    boolean isExpense(int row) {
+        return expense[row];
+    }
+
+    int day(int row) {
+        return days[row];
+    }
+
+    long cents(int row) {
+        return cents[row];
+    }
+
+    byte kind(int row) {
+        return kinds[row];
+    }
+
+    String category(int row) {
+        return categories[row];
+    }
+
+    String name(int row) {
+        return names[row];
+    }
+
+    String detail(int row) {
+        return details[row];
+    }
+}
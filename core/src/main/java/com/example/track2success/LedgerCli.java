@@ -0,0 +1,236 @@
+/**
+ * Command line batch runner for a saved ledger, for running imports and nightly reports on a machine without a
+ * display.
+ *
+ * Usage: LedgerCli [ledger directory] [job] [arguments] (+ [job] [arguments])...
+ *   import [statement.csv]...         imports bank statements (see StatementImporter)
+ *   report [directory]                writes the changed weekly reports, into the working directory by default
+ *   aggregate [from] [to]             prints the totals per category, over the whole ledger by default
+ *   export [file] [from] [to]         writes the records as a statement the import job can read back, or as
+ *                                     JSON Lines for a file.jsonl; a name ending in .gz gzips it (see LedgerExport)
+ *   export-totals [days|weeks|months|quarters|years] [file] [from] [to]
+ *                                     writes the expense and income totals per category and period
+ *   week-start [monday..sunday]       starts weeks on another day, rolling the weekly totals up again
+ *   serve [port]                      serves the ledger over HTTP on localhost until stopped (see LedgerServer)
+ */
+
+package com.example.track2success;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.DateTimeException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+public final class LedgerCli {
+
+    private static final int USAGE = 2;
+    private static final int FAILED = 1;
+
+    private final PrintStream out;
+
+    private LedgerCli(PrintStream out) {
+        this.out = out;
+    }
+
+    public static void main(String[] args) {
+        System.exit(run(args, System.out, System.err));
+    }
+
+    //Running the jobs of a command line and returning the exit status
+    static int run(String[] args, PrintStream out, PrintStream err) {
+        if (args.length < 2) {
+            err.println("Usage: LedgerCli <ledger directory> <import|report|aggregate|export|export-totals|week-start"
+                    + "|serve> [arguments] [+ <job> [arguments]]...");
+            return USAGE;
+        }
+        List<String[]> jobs = new ArrayList<>();
+        int start = 1;
+        for (int i = 1; i <= args.length; i++) {
+            if (i == args.length || args[i].equals("+")) {
+                if (i == start) {
+                    err.println("Empty job in the command line");
+                    return USAGE;
+                }
+                jobs.add(Arrays.copyOfRange(args, start, i));
+                start = i + 1;
+            }
+        }
+        LedgerCli cli = new LedgerCli(out);
+        try {
+            Accountant accountant = Accountant.open(Paths.get(args[0]));
+            try {
+                for (String[] job : jobs) {
+                    cli.runJob(accountant, job[0], Arrays.copyOfRange(job, 1, job.length));
+                }
+            } finally {
+                accountant.close();
+            }
+            return 0;
+        } catch (IllegalArgumentException | DateTimeException e) {
+            err.println(e.getMessage());
+            return USAGE;
+        } catch (IOException e) {
+            err.println("Failed: " + e.getMessage());
+            return FAILED;
+        }
+    }
+
+    private void runJob(Accountant accountant, String job, String[] arguments) throws IOException {
+        switch (job) {
+            case "import":
+                importStatements(accountant, arguments);
+                break;
+            case "report":
+                expectArguments(job, arguments, 0, 1);
+                Path directory = Paths.get(arguments.length == 0 ? "" : arguments[0]);
+                Files.createDirectories(directory.toAbsolutePath());
+                out.println("report: " + accountant.generateWeeklyReports(directory) + " files written");
+                break;
+            case "aggregate":
+                expectArguments(job, arguments, 0, 2);
+                aggregate(accountant, arguments);
+                break;
+            case "export":
+                expectArguments(job, arguments, 1, 3);
+                export(accountant, LedgerExport.Content.RECORDS, Paths.get(arguments[0]),
+                        Arrays.copyOfRange(arguments, 1, arguments.length));
+                break;
+            case "export-totals":
+                expectArguments(job, arguments, 2, 4);
+                export(accountant, LedgerExport.Content.totalsPer(PeriodUnit.parse(arguments[0])),
+                        Paths.get(arguments[1]), Arrays.copyOfRange(arguments, 2, arguments.length));
+                break;
+            case "week-start":
+                expectArguments(job, arguments, 1);
+                accountant.setFirstDayOfWeek(dayOfWeek(arguments[0]));
+                out.println("week-start: weeks start on " + accountant.getFirstDayOfWeek());
+                break;
+            case "serve":
+                expectArguments(job, arguments, 0, 1);
+                serve(accountant, arguments.length == 0 ? 8080 : Integer.parseInt(arguments[0]));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown job: " + job);
+        }
+    }
+
+    //Checking the job got one of the numbers of arguments it takes
+    private static void expectArguments(String job, String[] arguments, int... counts) {
+        for (int count : counts) {
+            if (arguments.length == count) {
+                return;
+            }
+        }
+        throw new IllegalArgumentException("Wrong arguments for " + job + ": " + String.join(" ", arguments));
+    }
+
+    private static DayOfWeek dayOfWeek(String name) {
+        try {
+            return DayOfWeek.valueOf(name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Not a day of the week: " + name);
+        }
+    }
+
+    private void importStatements(Accountant accountant, String[] files) throws IOException {
+        if (files.length == 0) {
+            throw new IllegalArgumentException("import needs at least one statement file");
+        }
+        StatementImporter importer = new StatementImporter(accountant);
+        for (String file : files) {
+            long rows = importer.importFile(Paths.get(file));
+            out.println("import: " + file + ": " + rows + " records");
+        }
+        if (importer.getRejectedRows() > 0) {
+            out.println("import: " + importer.getRejectedRows() + " rows could not be read");
+        }
+        accountant.sync();
+    }
+
+    //Serving the ledger until the process is stopped, then stopping the server and saving the ledger
+    private void serve(Accountant accountant, int port) throws IOException {
+        LedgerServer server = LedgerServer.start(accountant,
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        Thread shutdown = new Thread(() -> {
+            server.stop();
+            try {
+                accountant.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }, "ledger-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdown);
+        out.println("serve: listening on http://" + server.getAddress().getHostString() + ":"
+                + server.getAddress().getPort());
+        try {
+            new CountDownLatch(1).await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while serving", e);
+        }
+    }
+
+    //Totals per category (sorted by name), then the total expenses, incomes and net savings
+    private void aggregate(Accountant accountant, String[] range) {
+        LocalDate[] dates = range(accountant, range);
+        if (dates == null) {
+            out.println("aggregate: the ledger is empty");
+            return;
+        }
+        out.println("aggregate: " + dates[0] + " to " + dates[1]);
+        long expenses = printCategories("expense", accountant.getExpensesByCategory(dates[0], dates[1]));
+        long incomes = printCategories("income", accountant.getIncomeByCategory(dates[0], dates[1]));
+        out.println("total\texpenses\t" + money(expenses));
+        out.println("total\tincomes\t" + money(incomes));
+        out.println("total\tnet\t" + money(incomes - expenses));
+    }
+
+    private long printCategories(String kind, Map<String, Long> totals) {
+        long total = 0;
+        for (Map.Entry<String, Long> category : totals.entrySet()) {
+            out.println(kind + '\t' + category.getKey() + '\t' + money(category.getValue()));
+            total += category.getValue();
+        }
+        return total;
+    }
+
+    private static CharSequence money(long cents) {
+        return Money.appendDecimal(new StringBuilder(24), cents);
+    }
+
+    //Streaming records or totals to a file, as CSV or JSON Lines and gzipped or not as its name says
+    private void export(Accountant accountant, LedgerExport.Content content, Path file, String[] range)
+            throws IOException {
+        LocalDate[] dates = range(accountant, range);
+        long written = LedgerExport.forFile(accountant, content, file)
+                .writeTo(file, dates == null ? null : dates[0], dates == null ? null : dates[1]);
+        out.println("export: " + written + (content == LedgerExport.Content.RECORDS ? " records" : " totals")
+                + " written to " + file);
+    }
+
+    //The dates given on the command line, or the first and last date of the ledger; null for an empty ledger
+    private static LocalDate[] range(Accountant accountant, String[] range) {
+        if (range.length == 2) {
+            LocalDate from = LocalDate.parse(range[0]);
+            LocalDate to = LocalDate.parse(range[1]);
+            if (to.isBefore(from)) {
+                throw new IllegalArgumentException("The range ends before it starts: " + range[0] + " " + range[1]);
+            }
+            return new LocalDate[]{from, to};
+        }
+        LocalDate first = accountant.getFirstDate();
+        return first == null ? null : new LocalDate[]{first, accountant.getLastDate()};
+    }
+}
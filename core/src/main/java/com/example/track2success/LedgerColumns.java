@@ -0,0 +1,258 @@
+/**
+ * Column oriented storage for the rows of a ledger.
+ */
+
+package com.example.track2success;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+final class LedgerColumns {
+
+    // Rows per chunk, chunks are allocated lazily as the table grows
+    static final int CHUNK_SHIFT = 14;
+    static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private long[][] ids = new long[0][];
+    private int[][] days = new int[0][];
+    private long[][] cents = new long[0][];
+    private short[][] categories = new short[0][];
+    private byte[][] kinds = new byte[0][];
+    private int[][] names = new int[0][];
+    private int[][] details = new int[0][];
+    private int size;
+    private volatile LongIntHashMap rowsById;
+
+    // Bounds of every epoch day ever stored, used to size the aggregation arrays
+    private int minDay = Integer.MAX_VALUE;
+    private int maxDay = Integer.MIN_VALUE;
+
+    int size() {
+        return size;
+    }
+
+    int minDay() {
+        return minDay;
+    }
+
+    //Rough heap size of the columns: every allocated chunk (31 bytes a row) and the id index when it is built
+    long estimatedBytes() {
+        return (long) days.length * CHUNK_SIZE * 31 + (rowsById == null ? 0 : (long) size * 24);
+    }
+
+    int maxDay() {
+        return maxDay;
+    }
+
+    //Appending a row and returning its position
+    int append(long id, int day, long amountCents, short category, byte kind, int name, int detail) {
+        int row = size;
+        int chunk = row >>> CHUNK_SHIFT;
+        if (chunk == days.length) {
+            growChunks();
+        }
+        int offset = row & CHUNK_MASK;
+        ids[chunk][offset] = id;
+        days[chunk][offset] = day;
+        cents[chunk][offset] = amountCents;
+        categories[chunk][offset] = category;
+        kinds[chunk][offset] = kind;
+        names[chunk][offset] = name;
+        details[chunk][offset] = detail;
+        size++;
+        if (rowsById != null) {
+            rowsById.put(id, row);
+        }
+        minDay = Math.min(minDay, day);
+        maxDay = Math.max(maxDay, day);
+        return row;
+    }
+
+    //Removing a row by moving the last row into its place. Returns the row that was moved, or -1 if none was.
+    int removeSwap(int row) {
+        int last = size - 1;
+        if (row != last) {
+            int chunk = row >>> CHUNK_SHIFT, offset = row & CHUNK_MASK;
+            int lastChunk = last >>> CHUNK_SHIFT, lastOffset = last & CHUNK_MASK;
+            if (rowsById != null) {
+                rowsById.remove(ids[chunk][offset]);
+                rowsById.put(ids[lastChunk][lastOffset], row);
+            }
+            ids[chunk][offset] = ids[lastChunk][lastOffset];
+            days[chunk][offset] = days[lastChunk][lastOffset];
+            cents[chunk][offset] = cents[lastChunk][lastOffset];
+            categories[chunk][offset] = categories[lastChunk][lastOffset];
+            kinds[chunk][offset] = kinds[lastChunk][lastOffset];
+            names[chunk][offset] = names[lastChunk][lastOffset];
+            details[chunk][offset] = details[lastChunk][lastOffset];
+        } else if (rowsById != null) {
+            rowsById.remove(id(row));
+        }
+        size--;
+        return row != last ? last : -1;
+    }
+
+    //Adding one more chunk to every column
+    private void growChunks() {
+        int chunk = days.length;
+        ids = Arrays.copyOf(ids, chunk + 1);
+        days = Arrays.copyOf(days, chunk + 1);
+        cents = Arrays.copyOf(cents, chunk + 1);
+        categories = Arrays.copyOf(categories, chunk + 1);
+        kinds = Arrays.copyOf(kinds, chunk + 1);
+        names = Arrays.copyOf(names, chunk + 1);
+        details = Arrays.copyOf(details, chunk + 1);
+        ids[chunk] = new long[CHUNK_SIZE];
+        days[chunk] = new int[CHUNK_SIZE];
+        cents[chunk] = new long[CHUNK_SIZE];
+        categories[chunk] = new short[CHUNK_SIZE];
+        kinds[chunk] = new byte[CHUNK_SIZE];
+        names[chunk] = new int[CHUNK_SIZE];
+        details[chunk] = new int[CHUNK_SIZE];
+    }
+
+    //Finding the row holding a record id, -1 if there is none
+    int rowOf(long id) {
+        LongIntHashMap map = rowsById;
+        return (map != null ? map : buildRowsById()).get(id);
+    }
+
+    // Queries may ask for the first time from several threads at once
+    private synchronized LongIntHashMap buildRowsById() {
+        if (rowsById == null) {
+            LongIntHashMap map = new LongIntHashMap();
+            for (int row = 0; row < size; row++) {
+                map.put(id(row), row);
+            }
+            rowsById = map;
+        }
+        return rowsById;
+    }
+
+    // Single row accessors
+    long id(int row) {
+        return ids[row >>> CHUNK_SHIFT][row & CHUNK_MASK];
+    }
+
+    int day(int row) {
+        return days[row >>> CHUNK_SHIFT][row & CHUNK_MASK];
+    }
+
+    long cents(int row) {
+        return cents[row >>> CHUNK_SHIFT][row & CHUNK_MASK];
+    }
+
+    short category(int row) {
+        return categories[row >>> CHUNK_SHIFT][row & CHUNK_MASK];
+    }
+
+    byte kind(int row) {
+        return kinds[row >>> CHUNK_SHIFT][row & CHUNK_MASK];
+    }
+
+    int name(int row) {
+        return names[row >>> CHUNK_SHIFT][row & CHUNK_MASK];
+    }
+
+    int detail(int row) {
+        return details[row >>> CHUNK_SHIFT][row & CHUNK_MASK];
+    }
+
+    // Whole chunk accessors for tight scans, only the first chunkLength(c) entries of a chunk are in use
+    int chunkCount() {
+        return (size + CHUNK_MASK) >>> CHUNK_SHIFT;
+    }
+
+    int chunkLength(int chunk) {
+        return Math.min(CHUNK_SIZE, size - (chunk << CHUNK_SHIFT));
+    }
+
+    int[] dayChunk(int chunk) {
+        return days[chunk];
+    }
+
+    long[] centsChunk(int chunk) {
+        return cents[chunk];
+    }
+
+    short[] categoryChunk(int chunk) {
+        return categories[chunk];
+    }
+
+    //Writing the used part of every column, one column after another
+    void writeTo(LedgerSnapshot.Output out) throws IOException {
+        out.putInt(size);
+        out.putInt(minDay);
+        out.putInt(maxDay);
+        for (int row = 0; row < size; row++) {
+            out.putLong(id(row));
+        }
+        for (int row = 0; row < size; row++) {
+            out.putInt(day(row));
+        }
+        for (int row = 0; row < size; row++) {
+            out.putLong(cents(row));
+        }
+        for (int row = 0; row < size; row++) {
+            out.putShort(category(row));
+        }
+        for (int row = 0; row < size; row++) {
+            out.putByte(kind(row));
+        }
+        for (int row = 0; row < size; row++) {
+            out.putInt(name(row));
+        }
+        for (int row = 0; row < size; row++) {
+            out.putInt(detail(row));
+        }
+    }
+
+    //Copying the columns written by writeTo back out of a (usually memory mapped) buffer, a chunk at a time
+    static LedgerColumns readFrom(ByteBuffer in) {
+        LedgerColumns columns = new LedgerColumns();
+        int size = in.getInt();
+        columns.minDay = in.getInt();
+        columns.maxDay = in.getInt();
+        while (columns.days.length << CHUNK_SHIFT < size) {
+            columns.growChunks();
+        }
+        columns.size = size;
+        int chunks = columns.chunkCount();
+        for (int c = 0; c < chunks; c++) {
+            int length = columns.chunkLength(c);
+            in.asLongBuffer().get(columns.ids[c], 0, length);
+            in.position(in.position() + length * 8);
+        }
+        for (int c = 0; c < chunks; c++) {
+            int length = columns.chunkLength(c);
+            in.asIntBuffer().get(columns.days[c], 0, length);
+            in.position(in.position() + length * 4);
+        }
+        for (int c = 0; c < chunks; c++) {
+            int length = columns.chunkLength(c);
+            in.asLongBuffer().get(columns.cents[c], 0, length);
+            in.position(in.position() + length * 8);
+        }
+        for (int c = 0; c < chunks; c++) {
+            int length = columns.chunkLength(c);
+            in.asShortBuffer().get(columns.categories[c], 0, length);
+            in.position(in.position() + length * 2);
+        }
+        for (int c = 0; c < chunks; c++) {
+            in.get(columns.kinds[c], 0, columns.chunkLength(c));
+        }
+        for (int c = 0; c < chunks; c++) {
+            int length = columns.chunkLength(c);
+            in.asIntBuffer().get(columns.names[c], 0, length);
+            in.position(in.position() + length * 4);
+        }
+        for (int c = 0; c < chunks; c++) {
+            int length = columns.chunkLength(c);
+            in.asIntBuffer().get(columns.details[c], 0, length);
+            in.position(in.position() + length * 4);
+        }
+        return columns;
+    }
+}
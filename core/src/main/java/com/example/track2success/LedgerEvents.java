@@ -0,0 +1,29 @@
+/**
+ * Flight Recorder events for the slow ledger work: writing the weekly reports.
+ */
+
+package com.example.track2success;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+final class LedgerEvents {
+
+    private LedgerEvents() {
+    }
+
+    @Name("com.example.track2success.WeeklyReports")
+    @Label("Weekly Reports")
+    @Category("Track2Success")
+    @Description("Writing the changed weekly report files")
+    static final class WeeklyReports extends Event {
+        @Label("Directory")
+        String directory;
+
+        @Label("Files Written")
+        int filesWritten;
+    }
+}
@@ -0,0 +1,275 @@
+/**
+ * Streams part of a ledger out to a file or any other byte channel: the records themselves, or the expense and
+ * income totals of every category per day, week, month, quarter or year.
+ */
+
+package com.example.track2success;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.zip.GZIPOutputStream;
+
+public final class LedgerExport {
+
+    // Records read per window, and the days of totals read per window
+    private static final int WINDOW_RECORDS = 16 * 1024;
+    private static final int WINDOW_DAYS = 2 * 366;
+
+    // What an export holds: the records, or the totals per period of a unit
+    public enum Content {
+        RECORDS(null), DAILY_TOTALS(PeriodUnit.DAY), WEEKLY_TOTALS(PeriodUnit.WEEK),
+        MONTHLY_TOTALS(PeriodUnit.MONTH), QUARTERLY_TOTALS(PeriodUnit.QUARTER), YEARLY_TOTALS(PeriodUnit.YEAR);
+
+        private final PeriodUnit period;
+
+        Content(PeriodUnit period) {
+            this.period = period;
+        }
+
+        //The totals per period of a unit
+        public static Content totalsPer(PeriodUnit unit) {
+            for (Content content : values()) {
+                if (content.period == unit) {
+                    return content;
+                }
+            }
+            throw new IllegalArgumentException("No totals per " + unit);
+        }
+    }
+
+    public enum Format { CSV, JSON_LINES }
+
+    private final Accountant accountant;
+    private final Content content;
+    private final Format format;
+    private final boolean gzip;
+
+    // The window being encoded: its bytes and the line being built
+    private byte[] bytes = new byte[1 << 16];
+    private int length;
+    private final StringBuilder line = new StringBuilder(256);
+    private long written;
+
+    public LedgerExport(Accountant accountant, Content content, Format format, boolean gzip) {
+        this.accountant = accountant;
+        this.content = content;
+        this.format = format;
+        this.gzip = gzip;
+    }
+
+    //An export in the format a file name asks for: JSON Lines for .jsonl, CSV otherwise, gzipped when it ends in .gz
+    public static LedgerExport forFile(Accountant accountant, Content content, Path file) {
+        String name = file.getFileName().toString();
+        boolean gzip = name.endsWith(".gz");
+        if (gzip) {
+            name = name.substring(0, name.length() - 3);
+        }
+        return new LedgerExport(accountant, content, name.endsWith(".jsonl") ? Format.JSON_LINES : Format.CSV, gzip);
+    }
+
+    //Writing the range to a file, replacing what it held. Returns how many records or totals were written.
+    public long writeTo(Path file, LocalDate from, LocalDate to) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            return writeTo(channel, from, to);
+        }
+    }
+
+    //Writing the records or totals dated from one day to another (both included) to a channel, the whole ledger when
+    //both dates are null.
+    public long writeTo(WritableByteChannel channel, LocalDate from, LocalDate to) throws IOException {
+        if ((from == null) != (to == null)) {
+            throw new IllegalArgumentException("A range needs both from and to");
+        }
+        LocalDate ledgerFirst = accountant.getFirstDate();
+        LocalDate ledgerLast = accountant.getLastDate();
+        GZIPOutputStream compressed = gzip ? new GZIPOutputStream(Channels.newOutputStream(channel), 1 << 16) : null;
+        length = 0;
+        if (format == Format.CSV) {
+            appendLine(content == Content.RECORDS ? "date,amount,category,name,detail"
+                    : "date,category,expenses,incomes");
+        }
+        written = 0;
+        if (ledgerFirst != null && (from == null || !to.isBefore(from))) {
+            int first = (int) Math.max(from == null ? Long.MIN_VALUE : from.toEpochDay(), ledgerFirst.toEpochDay());
+            int last = (int) Math.min(to == null ? Long.MAX_VALUE : to.toEpochDay(), ledgerLast.toEpochDay());
+            for (int day = first; day <= last; ) {
+                int end;
+                if (content == Content.RECORDS) {
+                    end = accountant.windowEnd(day, last, WINDOW_RECORDS);
+                    accountant.visitRecords(day, end, this::appendRecord);
+                } else {
+                    // Windows end on the day before a period starts, so no period is split between two of them
+                    end = Math.min(last, accountant.periodStart(content.period, day + WINDOW_DAYS) - 1);
+                    accountant.visitTotals(content.period, day, end, this::appendTotal);
+                }
+                flush(channel, compressed);
+                day = end + 1;
+            }
+        }
+        flush(channel, compressed);
+        if (compressed != null) {
+            compressed.finish();
+            compressed.flush();
+        }
+        return written;
+    }
+
+    private void appendRecord(boolean isExpense, int day, long cents, String category, String name, String detail) {
+        line.setLength(0);
+        long amount = isExpense ? -cents : cents;
+        if (format == Format.CSV) {
+            appendDate(line, day).append(',');
+            Money.appendDecimal(line, amount).append(',');
+            appendField(line, category);
+            line.append(',');
+            appendField(line, name);
+            line.append(',');
+            appendField(line, detail);
+        } else {
+            appendDate(line.append("{\"date\":\""), day).append("\",\"amount\":");
+            Money.appendDecimal(line, amount);
+            appendMember(line, "category", category);
+            appendMember(line, "name", name);
+            appendMember(line, "detail", detail);
+            line.append('}');
+        }
+        appendLine(line);
+    }
+
+    private void appendTotal(int period, String category, long expenses, long incomes) {
+        line.setLength(0);
+        if (format == Format.CSV) {
+            appendDate(line, period).append(',');
+            appendField(line, category);
+            Money.appendDecimal(line.append(','), expenses);
+            Money.appendDecimal(line.append(','), incomes);
+        } else {
+            appendDate(line.append("{\"date\":\""), period).append('"');
+            appendMember(line, "category", category);
+            Money.appendDecimal(line.append(",\"expenses\":"), expenses);
+            Money.appendDecimal(line.append(",\"incomes\":"), incomes);
+            line.append('}');
+        }
+        appendLine(line);
+    }
+
+    //Encoding a line and its line break as UTF-8 onto the window
+    private void appendLine(CharSequence text) {
+        if (bytes.length - length < text.length() * 3 + 1) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + text.length() * 3 + 1));
+        }
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                bytes[length++] = (byte) c;
+            } else if (c < 0x800) {
+                bytes[length++] = (byte) (0xC0 | c >> 6);
+                bytes[length++] = (byte) (0x80 | c & 0x3F);
+            } else if (Character.isHighSurrogate(c) && i + 1 < text.length()
+                    && Character.isLowSurrogate(text.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                bytes[length++] = (byte) (0xF0 | codePoint >> 18);
+                bytes[length++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+                bytes[length++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+                bytes[length++] = (byte) (0x80 | codePoint & 0x3F);
+            } else {
+                // A lone surrogate cannot be encoded and becomes a question mark, as String.getBytes does
+                boolean lone = Character.isSurrogate(c);
+                bytes[length++] = lone ? (byte) '?' : (byte) (0xE0 | c >> 12);
+                if (!lone) {
+                    bytes[length++] = (byte) (0x80 | c >> 6 & 0x3F);
+                    bytes[length++] = (byte) (0x80 | c & 0x3F);
+                }
+            }
+        }
+        bytes[length++] = '\n';
+        written++;
+    }
+
+    //Writing the encoded window out and starting the next one
+    private void flush(WritableByteChannel channel, OutputStream compressed) throws IOException {
+        if (compressed != null) {
+            compressed.write(bytes, 0, length);
+        } else {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, length);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        length = 0;
+    }
+
+    //Writing an epoch day as yyyy-MM-dd, the way LocalDate.toString does for years 0 to 9999
+    private static StringBuilder appendDate(StringBuilder text, int epochDay) {
+        LocalDate date = LocalDate.ofEpochDay(epochDay);
+        if (date.getYear() < 0 || date.getYear() > 9999) {
+            return text.append(date);
+        }
+        appendTwoDigits(text, date.getYear() / 100);
+        appendTwoDigits(text, date.getYear() % 100).append('-');
+        appendTwoDigits(text, date.getMonthValue()).append('-');
+        return appendTwoDigits(text, date.getDayOfMonth());
+    }
+
+    private static StringBuilder appendTwoDigits(StringBuilder text, int value) {
+        return text.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
+    }
+
+    //Quoting a CSV field only when it holds a comma or a quote.
+    static void appendField(StringBuilder line, String field) {
+        if (field == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < field.length() && !quote; i++) {
+            quote = field.charAt(i) == ',' || field.charAt(i) == '"';
+        }
+        if (quote) {
+            line.append('"');
+        }
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (c == '"') {
+                line.append("\"\"");
+            } else {
+                line.append(c == '\r' || c == '\n' ? ' ' : c);
+            }
+        }
+        if (quote) {
+            line.append('"');
+        }
+    }
+
+    //Adding ,"name":"value" to a JSON object, nothing when the value is null
+    private static void appendMember(StringBuilder json, String name, String value) {
+        if (value != null) {
+            json.append(",\"").append(name).append("\":");
+            appendString(json, value);
+        }
+    }
+
+    //Writing a JSON string with its quotes
+    static void appendString(StringBuilder json, String text) {
+        json.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < ' ') {
+                json.append("\\u00").append(Character.forDigit(c >> 4, 16)).append(Character.forDigit(c & 15, 16));
+            } else {
+                json.append(c);
+            }
+        }
+        json.append('"');
+    }
+}
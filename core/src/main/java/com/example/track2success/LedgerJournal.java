@@ -0,0 +1,377 @@
+/**
+ * Append only journal of every add and remove made to an Accountant, so the ledger survives a restart. Each entry
+ * is framed with its length and a CRC32 of its bytes.
+ */
+
+package com.example.track2success;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+final class LedgerJournal implements AutoCloseable {
+
+    static final byte ADD_EXPENSE = 1;
+    static final byte ADD_INCOME = 2;
+    static final byte REMOVE = 3;
+    static final byte ADD_OCCURRENCE = 4;
+
+    private static final int MAGIC = 0x54324A4C; // "T2JL"
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 16;
+    private static final int FRAME_SIZE = 8;
+    private static final int MAX_ENTRY = 1 << 20;
+
+    // Receives the entries read back from the journal
+    interface Handler {
+        void add(byte op, long id, int day, long cents, byte kind, String category, String name, String detail);
+
+        void remove(long id);
+
+        void occurrence(Recurrence recurrence, int day);
+    }
+
+    private final FileChannel channel;
+    private final long syncIntervalMillis;
+    private final Thread flusher;
+    private final CRC32 crc = new CRC32();
+
+    // Entries waiting for the next group commit, and the buffer the flusher is writing
+    private ByteBuffer pending = ByteBuffer.allocate(64 * 1024);
+    private ByteBuffer writing = ByteBuffer.allocate(64 * 1024);
+    private long appendedSeq;
+    private long durableSeq;
+    private IOException failure;
+    private boolean closed;
+
+    private LedgerJournal(FileChannel channel, long syncIntervalMillis) {
+        this.channel = channel;
+        this.syncIntervalMillis = syncIntervalMillis;
+        this.flusher = new Thread(this::flushLoop, "ledger-journal");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    //Opening a journal for appending after replaying what it already holds into the handler.
+    static LedgerJournal open(Path file, long generation, long syncIntervalMillis, Handler handler) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            if (channel.size() < HEADER_SIZE || readGeneration(channel) < generation) {
+                writeHeader(channel, generation);
+            }
+            long end = replay(channel, handler);
+            if (end < channel.size()) {
+                // Dropping a torn entry at the tail so new entries follow the last good one
+                channel.truncate(end);
+                channel.force(true);
+            }
+            channel.position(end);
+            return new LedgerJournal(channel, syncIntervalMillis);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static long readGeneration(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        int read = 0;
+        while (header.hasRemaining() && read >= 0) {
+            read = channel.read(header, header.position());
+        }
+        header.flip();
+        if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+            throw new IOException("Not a ledger journal");
+        }
+        return header.getLong();
+    }
+
+    private static void writeHeader(FileChannel channel, long generation) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION).putLong(generation);
+        header.flip();
+        channel.truncate(0);
+        while (header.hasRemaining()) {
+            channel.write(header, header.position());
+        }
+        channel.position(HEADER_SIZE);
+        channel.force(true);
+    }
+
+    //Reading every complete entry and returning the position just after the last good one
+    private static long replay(FileChannel channel, Handler handler) throws IOException {
+        InputStream stream = new BufferedInputStream(Channels.newInputStream(channel.position(0)), 1 << 16);
+        DataInputStream in = new DataInputStream(stream);
+        in.readFully(new byte[HEADER_SIZE]);
+        long position = HEADER_SIZE;
+        CRC32 crc = new CRC32();
+        byte[] payload = new byte[256];
+        while (true) {
+            int length;
+            int checksum;
+            try {
+                length = in.readInt();
+                checksum = in.readInt();
+                if (length <= 0 || length > MAX_ENTRY) {
+                    return position;
+                }
+                if (length > payload.length) {
+                    payload = new byte[Math.max(length, payload.length * 2)];
+                }
+                in.readFully(payload, 0, length);
+            } catch (EOFException e) {
+                return position;
+            }
+            crc.reset();
+            crc.update(payload, 0, length);
+            if ((int) crc.getValue() != checksum) {
+                return position;
+            }
+            apply(ByteBuffer.wrap(payload, 0, length), handler);
+            position += FRAME_SIZE + length;
+        }
+    }
+
+    private static void apply(ByteBuffer entry, Handler handler) {
+        byte op = entry.get();
+        long id = entry.getLong();
+        if (op == REMOVE) {
+            handler.remove(id);
+            return;
+        }
+        int day = entry.getInt();
+        long cents = entry.getLong();
+        byte kind = entry.get();
+        String category = readString(entry);
+        String name = readString(entry);
+        String detail = readString(entry);
+        if (op != ADD_OCCURRENCE) {
+            handler.add(op, id, day, cents, kind, category, name, detail);
+            return;
+        }
+        boolean isExpense = entry.get() != 0;
+        Recurrence recurrence = new Recurrence(isExpense, kind, category, name, detail, cents, entry.getInt(),
+                entry.getInt(), PeriodUnit.values()[entry.get()], entry.getInt());
+        handler.add(isExpense ? ADD_EXPENSE : ADD_INCOME, id, day, cents, kind, category, name, detail);
+        handler.occurrence(recurrence, day);
+    }
+
+    //Queuing an added record, it becomes durable with the next group commit
+    synchronized long logAdd(byte op, long id, int day, long cents, byte kind, String category, String name,
+                             String detail) {
+        byte[] categoryBytes = bytesOf(category);
+        byte[] nameBytes = bytesOf(name);
+        byte[] detailBytes = bytesOf(detail);
+        int length = 1 + 8 + 4 + 8 + 1 + sizeOf(categoryBytes) + sizeOf(nameBytes) + sizeOf(detailBytes);
+        ByteBuffer buffer = beginEntry(length);
+        int start = buffer.position();
+        buffer.put(op).putLong(id).putInt(day).putLong(cents).put(kind);
+        putString(buffer, categoryBytes);
+        putString(buffer, nameBytes);
+        putString(buffer, detailBytes);
+        return endEntry(buffer, start, length);
+    }
+
+    //Queuing an occurrence of a recurring record added on an epoch day, with the recurrence it came from
+    synchronized long logOccurrence(long id, int day, Recurrence recurrence) {
+        byte[] categoryBytes = bytesOf(recurrence.getCategory());
+        byte[] nameBytes = bytesOf(recurrence.getName());
+        byte[] detailBytes = bytesOf(recurrence.detail());
+        int length = 1 + 8 + 4 + 8 + 1 + sizeOf(categoryBytes) + sizeOf(nameBytes) + sizeOf(detailBytes) + 1 + 4 + 4
+                + 1 + 4;
+        ByteBuffer buffer = beginEntry(length);
+        int start = buffer.position();
+        buffer.put(ADD_OCCURRENCE).putLong(id).putInt(day).putLong(recurrence.getCents()).put(recurrence.kind());
+        putString(buffer, categoryBytes);
+        putString(buffer, nameBytes);
+        putString(buffer, detailBytes);
+        buffer.put((byte) (recurrence.isExpense() ? 1 : 0)).putInt(recurrence.firstDay()).putInt(recurrence.lastDay())
+                .put((byte) recurrence.getUnit().ordinal()).putInt(recurrence.getEvery());
+        return endEntry(buffer, start, length);
+    }
+
+    //Queuing a removal
+    synchronized long logRemove(long id) {
+        int length = 1 + 8;
+        ByteBuffer buffer = beginEntry(length);
+        int start = buffer.position();
+        buffer.put(REMOVE).putLong(id);
+        return endEntry(buffer, start, length);
+    }
+
+    private ByteBuffer beginEntry(int length) {
+        if (failure != null) {
+            throw new UncheckedIOException("Ledger journal failed", failure);
+        }
+        if (closed) {
+            throw new IllegalStateException("Ledger journal is closed");
+        }
+        if (pending.remaining() < FRAME_SIZE + length) {
+            ByteBuffer bigger = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + FRAME_SIZE + length));
+            pending.flip();
+            bigger.put(pending);
+            pending = bigger;
+        }
+        pending.putInt(length).putInt(0);
+        return pending;
+    }
+
+    private long endEntry(ByteBuffer buffer, int start, int length) {
+        crc.reset();
+        crc.update(buffer.array(), start, length);
+        buffer.putInt(start - 4, (int) crc.getValue());
+        if (appendedSeq == durableSeq) {
+            notifyAll();
+        }
+        return ++appendedSeq;
+    }
+
+    //Blocking until everything queued so far has been written and fsynced
+    void sync() throws IOException {
+        long target;
+        synchronized (this) {
+            target = appendedSeq;
+            notifyAll();
+        }
+        awaitDurable(target);
+    }
+
+    synchronized void awaitDurable(long seq) throws IOException {
+        boolean interrupted = false;
+        while (durableSeq < seq && failure == null) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    //Group commit loop: waits for entries, gives other writers the sync interval to join in, then writes and fsyncs
+    private void flushLoop() {
+        while (true) {
+            long batchSeq;
+            synchronized (this) {
+                while (appendedSeq == durableSeq && !closed) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (appendedSeq == durableSeq) {
+                    return;
+                }
+                if (!closed && syncIntervalMillis > 0) {
+                    try {
+                        wait(syncIntervalMillis);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                ByteBuffer full = pending;
+                pending = writing;
+                pending.clear();
+                writing = full;
+                batchSeq = appendedSeq;
+            }
+            try {
+                writing.flip();
+                while (writing.hasRemaining()) {
+                    channel.write(writing);
+                }
+                channel.force(false);
+            } catch (IOException e) {
+                synchronized (this) {
+                    failure = e;
+                    notifyAll();
+                }
+                return;
+            }
+            synchronized (this) {
+                durableSeq = batchSeq;
+                notifyAll();
+            }
+        }
+    }
+
+    //Starting the journal over for a new snapshot generation once everything queued has been written
+    synchronized void rotate(long generation) throws IOException {
+        sync();
+        while (durableSeq < appendedSeq && failure == null) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while rotating the journal", e);
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        writeHeader(channel, generation);
+    }
+
+    //Writing out whatever is still queued and closing the file
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            notifyAll();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private static byte[] bytesOf(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int sizeOf(byte[] bytes) {
+        return 4 + (bytes == null ? 0 : bytes.length);
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] bytes) {
+        if (bytes == null) {
+            buffer.putInt(-1);
+        } else {
+            buffer.putInt(bytes.length).put(bytes);
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+}
@@ -0,0 +1,89 @@
+/**
+ * Process wide latency histograms and counters for the ledger and the window: adds, removes, queries, stripe
+ * drains, weekly report writes, LedgerServer requests, and building the graph and the report window.
+ */
+
+package com.example.track2success;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+public final class LedgerMetrics {
+
+    static final LatencyHistogram ADD = new LatencyHistogram("add");
+    static final LatencyHistogram ADD_BATCH = new LatencyHistogram("add_batch");
+    static final LatencyHistogram REMOVE = new LatencyHistogram("remove");
+    static final LatencyHistogram QUERY = new LatencyHistogram("query");
+    static final LatencyHistogram DRAIN = new LatencyHistogram("stripe_drain");
+    static final LatencyHistogram REPORT_WRITE = new LatencyHistogram("report_write");
+    public static final LatencyHistogram GRAPH_BUILD = new LatencyHistogram("graph_build");
+    public static final LatencyHistogram REPORT_BUILD = new LatencyHistogram("report_build");
+    static final LatencyHistogram HTTP_REQUEST = new LatencyHistogram("http_request");
+
+    static final LongAdder ROWS_ADDED = new LongAdder();
+    static final LongAdder ROWS_REMOVED = new LongAdder();
+    static final LongAdder REPORT_FILES_WRITTEN = new LongAdder();
+
+    private static final LatencyHistogram[] HISTOGRAMS = {ADD, ADD_BATCH, REMOVE, QUERY, DRAIN, REPORT_WRITE,
+            GRAPH_BUILD, REPORT_BUILD, HTTP_REQUEST};
+
+    private LedgerMetrics() {
+    }
+
+    //Every histogram and counter as text, latencies in microseconds
+    public static String snapshot() {
+        StringBuilder text = new StringBuilder(1024);
+        text.append("# Track2Success metrics ").append(Instant.now()).append('\n');
+        for (LatencyHistogram histogram : HISTOGRAMS) {
+            long count = histogram.count();
+            text.append(histogram.name())
+                    .append(" count=").append(count)
+                    .append(" mean_us=").append(count == 0 ? 0 : micros(histogram.totalNanos() / count))
+                    .append(" p50_us=").append(micros(histogram.percentileNanos(0.50)))
+                    .append(" p90_us=").append(micros(histogram.percentileNanos(0.90)))
+                    .append(" p99_us=").append(micros(histogram.percentileNanos(0.99)))
+                    .append(" max_us=").append(micros(histogram.maxNanos()))
+                    .append('\n');
+        }
+        text.append("rows_added ").append(ROWS_ADDED.sum()).append('\n');
+        text.append("rows_removed ").append(ROWS_REMOVED.sum()).append('\n');
+        text.append("report_files_written ").append(REPORT_FILES_WRITTEN.sum()).append('\n');
+        return text.toString();
+    }
+
+    private static double micros(long nanos) {
+        return Math.round(nanos / 100.0) / 10.0;
+    }
+
+    //Writing the snapshot to a file, replacing the previous one in a single move
+    public static void writeTo(Path file) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(temporary, snapshot().getBytes(StandardCharsets.UTF_8));
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    //Writing the snapshot to a file every period until the returned executor is shut down
+    public static ScheduledExecutorService writePeriodically(Path file, long period, TimeUnit unit) {
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "metrics-dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleAtFixedRate(() -> {
+            try {
+                writeTo(file);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }, period, period, unit);
+        return executor;
+    }
+}
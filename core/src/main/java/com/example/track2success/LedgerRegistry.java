@@ -0,0 +1,220 @@
+/**
+ * Hosts the ledgers of many tenants (one per household) in one process. Every tenant has its own Accountant in a
+ * directory of its own under the registry's root.
+ */
+
+package com.example.track2success;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+public final class LedgerRegistry {
+
+    // Tenant names double as directory names, so they are kept to a safe set of characters
+    private static final Pattern TENANT = Pattern.compile("[A-Za-z0-9][A-Za-z0-9_.-]{0,127}");
+
+    private final Path root;
+    private final long budgetBytes;
+
+    // Open ledgers in least recently used order, ledgers being closed, and the estimated size of the open ones.
+    private final LinkedHashMap<String, Entry> ledgers = new LinkedHashMap<>(64, 0.75f, true);
+    private final Map<String, Entry> closing = new HashMap<>();
+    private long residentBytes;
+    private boolean shutDown;
+
+    // Work done with a tenant's ledger
+    public interface Work<T> {
+        T run(Accountant accountant) throws IOException;
+    }
+
+    // One tenant's ledger: opened on first use under the entry's own lock, so opening one tenant never holds up
+    // another, and closed under the same lock once evicted
+    private static final class Entry {
+        final String tenant;
+        Entry previous;
+        Accountant accountant;
+        int users;
+        long bytes;
+        boolean closed;
+
+        Entry(String tenant, Entry previous) {
+            this.tenant = tenant;
+            this.previous = previous;
+        }
+
+        synchronized Accountant open(Path directory) throws IOException {
+            if (accountant == null) {
+                if (previous != null) {
+                    previous.awaitClosed();
+                    previous = null;
+                }
+                accountant = Accountant.open(directory);
+            }
+            return accountant;
+        }
+
+        synchronized void close() throws IOException {
+            try {
+                if (accountant != null) {
+                    accountant.close();
+                }
+            } finally {
+                accountant = null;
+                previous = null;
+                closed = true;
+                notifyAll();
+            }
+        }
+
+        synchronized long estimatedBytes() {
+            return accountant == null ? 0 : accountant.estimatedBytes();
+        }
+
+        //Waiting for the evicted ledger of the same tenant to be saved, so two Accountants never share a journal
+        synchronized void awaitClosed() throws IOException {
+            while (!closed) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while waiting for ledger " + tenant + " to be saved", e);
+                }
+            }
+        }
+    }
+
+    public LedgerRegistry(Path root, long budgetBytes) throws IOException {
+        this.root = Files.createDirectories(root);
+        this.budgetBytes = budgetBytes;
+    }
+
+    //Running work on a tenant's ledger, opening it first if it is not open.
+    public <T> T withLedger(String tenant, Work<T> work) throws IOException {
+        if (!TENANT.matcher(tenant).matches()) {
+            throw new IllegalArgumentException("Not a valid tenant name: " + tenant);
+        }
+        Entry entry = acquire(tenant);
+        T result;
+        try {
+            result = work.run(entry.open(root.resolve(tenant)));
+        } catch (Throwable e) {
+            closeEvicted(release(entry), e);
+            throw e;
+        }
+        closeEvicted(release(entry), null);
+        return result;
+    }
+
+    private synchronized Entry acquire(String tenant) {
+        if (shutDown) {
+            throw new IllegalStateException("The registry has been closed");
+        }
+        Entry entry = ledgers.get(tenant);
+        if (entry == null) {
+            entry = new Entry(tenant, closing.get(tenant));
+            ledgers.put(tenant, entry);
+        }
+        entry.users++;
+        return entry;
+    }
+
+    //Updating the size of a ledger after it was used, then evicting the least recently used idle ledgers until the
+    //open ones fit in the budget again, and returning them to be closed.
+    private List<Entry> release(Entry entry) {
+        long bytes = entry.estimatedBytes();
+        List<Entry> evicted = new ArrayList<>();
+        synchronized (this) {
+            entry.users--;
+            if (shutDown) {
+                notifyAll();
+                return evicted;
+            }
+            residentBytes += bytes - entry.bytes;
+            entry.bytes = bytes;
+            Iterator<Entry> leastRecent = ledgers.values().iterator();
+            while (residentBytes > budgetBytes && leastRecent.hasNext()) {
+                Entry candidate = leastRecent.next();
+                if (candidate.users == 0) {
+                    leastRecent.remove();
+                    closing.put(candidate.tenant, candidate);
+                    residentBytes -= candidate.bytes;
+                    evicted.add(candidate);
+                }
+            }
+        }
+        return evicted;
+    }
+
+    //Closing evicted ledgers.
+    private void closeEvicted(List<Entry> evicted, Throwable primary) {
+        try {
+            closeAll(evicted);
+        } catch (IOException e) {
+            if (primary != null) {
+                primary.addSuppressed(e);
+            } else {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private void closeAll(List<Entry> entries) throws IOException {
+        IOException failure = null;
+        for (Entry entry : entries) {
+            try {
+                entry.close();
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            } finally {
+                synchronized (this) {
+                    closing.remove(entry.tenant, entry);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    //Tenants whose ledgers are open right now, least recently used first
+    public synchronized List<String> openTenants() {
+        return new ArrayList<>(ledgers.keySet());
+    }
+
+    //Estimated heap used by the open ledgers
+    public synchronized long residentBytes() {
+        return residentBytes;
+    }
+
+    //Closing every open ledger once the work still running on them has finished. No new work may start.
+    public void close() throws IOException {
+        List<Entry> open;
+        synchronized (this) {
+            shutDown = true;
+            while (ledgers.values().stream().anyMatch(entry -> entry.users > 0)) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while waiting for ledger work to finish", e);
+                }
+            }
+            open = new ArrayList<>(ledgers.values());
+            ledgers.clear();
+            residentBytes = 0;
+        }
+        closeAll(open);
+    }
+}
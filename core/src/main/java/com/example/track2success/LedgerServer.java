@@ -0,0 +1,340 @@
+/**
+ * Small HTTP API over an Accountant, so scripts and other machines can add records and ask for totals while the
+ * ledger is in use.
+ *
+ *   POST /records                     a statement CSV (header line first, see StatementImporter), added as one batch
+ *                                     and on disk before the answer is sent
+ *   GET  /records?from=&to=&format=&totals=
+ *                                     the records streamed as a statement CSV, or as JSON Lines with format=jsonl;
+ *                                     totals=days, weeks, months, quarters or years streams the totals per
+ *                                     category instead (see LedgerExport). Gzipped when the request accepts gzip.
+ *   GET  /totals?from=&to=&category=  total expenses, incomes and net savings, for one category or all
+ *   GET  /categories?from=&to=        totals per category
+ *   GET  /balance?date=               savings accumulated up to and including a day
+ *   GET  /metrics                     LedgerMetrics as text
+ */
+
+package com.example.track2success;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public final class LedgerServer {
+
+    // Connections waiting to be accepted, and the largest statement a single POST may carry
+    private static final int BACKLOG = 1024;
+    static final int MAX_BODY = 16 << 20;
+
+    private final Accountant accountant;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    // Handling one request, with the error answers and the timing done by the caller
+    private interface Endpoint {
+        void handle(HttpExchange exchange, Map<String, String> query) throws IOException;
+    }
+
+    private LedgerServer(Accountant accountant, HttpServer server, ExecutorService executor) {
+        this.accountant = accountant;
+        this.server = server;
+        this.executor = executor;
+    }
+
+    //Starting a server for the ledger on the given address (port 0 picks a free port)
+    public static LedgerServer start(Accountant accountant, InetSocketAddress address) throws IOException {
+        HttpServer server = HttpServer.create(address, BACKLOG);
+        LedgerServer ledgerServer = new LedgerServer(accountant, server, newExecutor());
+        server.createContext("/records", ledgerServer.endpoint("/records", ledgerServer::listRecords,
+                ledgerServer::addRecords));
+        server.createContext("/totals", ledgerServer.endpoint("/totals", ledgerServer::totals, null));
+        server.createContext("/categories", ledgerServer.endpoint("/categories", ledgerServer::categories, null));
+        server.createContext("/balance", ledgerServer.endpoint("/balance", ledgerServer::balance, null));
+        server.createContext("/metrics", ledgerServer.endpoint("/metrics", ledgerServer::metrics, null));
+        server.setExecutor(ledgerServer.executor);
+        server.start();
+        return ledgerServer;
+    }
+
+    //A thread per request: virtual when Executors has them, otherwise platform threads, enough of them to keep
+    //serving queries while writers wait for the journal
+    private static ExecutorService newExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return Executors.newFixedThreadPool(Math.max(16, Runtime.getRuntime().availableProcessors() * 8),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, "ledger-http");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+        }
+    }
+
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    //Stopping the server at once; requests still running are cut off
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private HttpHandler endpoint(String path, Endpoint get, Endpoint post) {
+        return exchange -> {
+            long start = System.nanoTime();
+            try {
+                if (!exchange.getRequestURI().getPath().equals(path)) {
+                    sendText(exchange, 404, "No such endpoint\n");
+                    return;
+                }
+                Endpoint endpoint = exchange.getRequestMethod().equals("GET") ? get
+                        : exchange.getRequestMethod().equals("POST") ? post : null;
+                if (endpoint == null) {
+                    exchange.getResponseHeaders().set("Allow", post == null ? "GET" : "GET, POST");
+                    sendText(exchange, 405, "Method not allowed\n");
+                    return;
+                }
+                endpoint.handle(exchange, query(exchange));
+            } catch (IllegalArgumentException | DateTimeException e) {
+                sendError(exchange, 400, e);
+            } catch (IllegalStateException e) {
+                // A request the ledger cannot take as it is, such as a statement with too many new categories
+                sendError(exchange, 409, e);
+            } catch (IOException | UncheckedIOException e) {
+                sendError(exchange, 500, e);
+            } finally {
+                exchange.close();
+                LedgerMetrics.HTTP_REQUEST.recordSince(start);
+            }
+        };
+    }
+
+    private void addRecords(HttpExchange exchange, Map<String, String> query) throws IOException {
+        byte[] body = new byte[8192];
+        int length = 0;
+        try (InputStream in = exchange.getRequestBody()) {
+            for (int read; (read = in.read(body, length, body.length - length)) >= 0; ) {
+                length += read;
+                if (length == body.length) {
+                    // The buffer ends one byte past the limit, so a body of exactly MAX_BODY bytes still fits
+                    if (length > MAX_BODY) {
+                        sendText(exchange, 413, "A statement may hold at most " + MAX_BODY + " bytes\n");
+                        return;
+                    }
+                    body = Arrays.copyOf(body, Math.min(MAX_BODY + 1, body.length * 2));
+                }
+            }
+        }
+        StatementImporter importer = new StatementImporter(accountant, 1);
+        long added;
+        try {
+            added = importer.importBytes(body, length);
+        } catch (IOException e) {
+            // A statement without the columns it needs
+            throw new IllegalArgumentException(e.getMessage());
+        }
+        accountant.sync();
+        sendJson(exchange, new StringBuilder(64)
+                .append("{\"added\":").append(added)
+                .append(",\"rejected\":").append(importer.getRejectedRows()).append('}'));
+    }
+
+    //Streaming the records, or the daily or weekly totals, as CSV or JSON Lines, gzipped when the client takes it
+    private void listRecords(HttpExchange exchange, Map<String, String> query) throws IOException {
+        LocalDate[] range = range(query);
+        LedgerExport.Content content = contentOf(query.get("totals"));
+        boolean jsonLines = "jsonl".equals(query.get("format"));
+        if (!jsonLines && query.get("format") != null && !query.get("format").equals("csv")) {
+            throw new IllegalArgumentException("format is csv or jsonl, not " + query.get("format"));
+        }
+        boolean gzip = acceptsGzip(exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+        exchange.getResponseHeaders().set("Content-Type",
+                jsonLines ? "application/x-ndjson; charset=utf-8" : "text/csv; charset=utf-8");
+        if (gzip) {
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        }
+        exchange.sendResponseHeaders(200, 0);
+        try (WritableByteChannel channel = Channels.newChannel(exchange.getResponseBody())) {
+            new LedgerExport(accountant, content, jsonLines ? LedgerExport.Format.JSON_LINES : LedgerExport.Format.CSV,
+                    gzip).writeTo(channel, range == null ? null : range[0], range == null ? null : range[1]);
+        }
+    }
+
+    //Whether an Accept-Encoding header takes gzip: named with a quality above zero, or left to a * that is.
+    static boolean acceptsGzip(String encodings) {
+        if (encodings == null) {
+            return false;
+        }
+        Boolean gzip = null;
+        boolean any = false;
+        for (String encoding : encodings.split(",")) {
+            String[] parts = encoding.split(";");
+            String name = parts[0].trim();
+            double quality = 1;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (parameter.startsWith("q=") || parameter.startsWith("Q=")) {
+                    try {
+                        quality = Double.parseDouble(parameter.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        quality = 0;
+                    }
+                }
+            }
+            if (name.equalsIgnoreCase("gzip") || name.equalsIgnoreCase("x-gzip")) {
+                gzip = quality > 0;
+            } else if (name.equals("*")) {
+                any = quality > 0;
+            }
+        }
+        return gzip != null ? gzip : any;
+    }
+
+    private static LedgerExport.Content contentOf(String totals) {
+        return totals == null ? LedgerExport.Content.RECORDS
+                : LedgerExport.Content.totalsPer(PeriodUnit.parse(totals));
+    }
+
+    private void totals(HttpExchange exchange, Map<String, String> query) throws IOException {
+        LocalDate[] range = range(query);
+        String category = query.get("category");
+        long expenses = range == null ? 0 : accountant.sumExpenses(range[0], range[1], category);
+        long incomes = range == null ? 0 : accountant.sumIncomes(range[0], range[1], category);
+        StringBuilder json = new StringBuilder(128).append('{');
+        appendRange(json, range);
+        json.append("\"expenses\":");
+        Money.appendDecimal(json, expenses);
+        json.append(",\"incomes\":");
+        Money.appendDecimal(json, incomes);
+        json.append(",\"net\":");
+        Money.appendDecimal(json, incomes - expenses);
+        sendJson(exchange, json.append('}'));
+    }
+
+    private void categories(HttpExchange exchange, Map<String, String> query) throws IOException {
+        LocalDate[] range = range(query);
+        StringBuilder json = new StringBuilder(512).append('{');
+        appendRange(json, range);
+        json.append("\"expenses\":");
+        appendCategories(json, range == null ? Collections.emptyMap()
+                : accountant.getExpensesByCategory(range[0], range[1]));
+        json.append(",\"incomes\":");
+        appendCategories(json, range == null ? Collections.emptyMap()
+                : accountant.getIncomeByCategory(range[0], range[1]));
+        sendJson(exchange, json.append('}'));
+    }
+
+    private static void appendCategories(StringBuilder json, Map<String, Long> totals) {
+        json.append('{');
+        boolean first = true;
+        for (Map.Entry<String, Long> total : totals.entrySet()) {
+            if (!first) {
+                json.append(',');
+            }
+            first = false;
+            LedgerExport.appendString(json, total.getKey());
+            json.append(':');
+            Money.appendDecimal(json, total.getValue());
+        }
+        json.append('}');
+    }
+
+    private void balance(HttpExchange exchange, Map<String, String> query) throws IOException {
+        String date = query.get("date");
+        if (date == null) {
+            throw new IllegalArgumentException("balance needs a date");
+        }
+        LocalDate day = LocalDate.parse(date);
+        StringBuilder json = new StringBuilder(64).append("{\"date\":\"").append(day).append("\",\"balance\":");
+        Money.appendDecimal(json, accountant.getBalance(day));
+        sendJson(exchange, json.append('}'));
+    }
+
+    private void metrics(HttpExchange exchange, Map<String, String> query) throws IOException {
+        sendText(exchange, 200, LedgerMetrics.snapshot());
+    }
+
+    //The range of the from and to parameters, the whole ledger when both are missing, null for an empty ledger
+    private LocalDate[] range(Map<String, String> query) {
+        String from = query.get("from");
+        String to = query.get("to");
+        if (from == null && to == null) {
+            LocalDate first = accountant.getFirstDate();
+            return first == null ? null : new LocalDate[]{first, accountant.getLastDate()};
+        }
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("A range needs both from and to");
+        }
+        LocalDate[] range = {LocalDate.parse(from), LocalDate.parse(to)};
+        if (range[1].isBefore(range[0])) {
+            throw new IllegalArgumentException("The range ends before it starts: " + from + " " + to);
+        }
+        return range;
+    }
+
+    private static void appendRange(StringBuilder json, LocalDate[] range) {
+        if (range != null) {
+            json.append("\"from\":\"").append(range[0]).append("\",\"to\":\"").append(range[1]).append("\",");
+        }
+    }
+
+    private static Map<String, String> query(HttpExchange exchange) {
+        Map<String, String> query = new HashMap<>();
+        String raw = exchange.getRequestURI().getRawQuery();
+        if (raw == null || raw.isEmpty()) {
+            return query;
+        }
+        for (String pair : raw.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals > 0) {
+                query.put(URLDecoder.decode(pair.substring(0, equals), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return query;
+    }
+
+    private static void sendJson(HttpExchange exchange, CharSequence json) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        send(exchange, 200, json.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void sendText(HttpExchange exchange, int status, String text) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        send(exchange, status, text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    //Answering with an error, unless the answer has already started and the client only sees it cut off
+    private static void sendError(HttpExchange exchange, int status, Exception e) throws IOException {
+        if (exchange.getResponseCode() == -1) {
+            sendText(exchange, status, e.getMessage() + "\n");
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
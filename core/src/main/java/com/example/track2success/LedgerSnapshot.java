@@ -0,0 +1,183 @@
+/**
+ * Compact binary image of a whole ledger: the day weeks start on, the string tables, both column sets and the daily
+ * and weekly rollups, followed by a CRC32 of everything before it.
+ */
+
+package com.example.track2success;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.DayOfWeek;
+import java.util.zip.CRC32;
+
+final class LedgerSnapshot {
+
+    private static final int MAGIC = 0x54325350; // "T2SP"
+    private static final int VERSION = 2;
+
+    // Version 1 had no first day of the week, its weeks start on Sunday
+    private static final int VERSION_SUNDAY_WEEKS = 1;
+
+    private LedgerSnapshot() {
+    }
+
+    //Writing a snapshot next to the target file and moving it into place once it is on disk
+    static void write(Path file, long generation, long nextId, DayOfWeek firstDayOfWeek, CategoryDictionary categories,
+                      StringTable labels, LedgerColumns expenses, LedgerColumns incomes, Rollup[] rollups)
+            throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            Output out = new Output(channel);
+            out.putInt(MAGIC);
+            out.putInt(VERSION);
+            out.putLong(generation);
+            out.putLong(nextId);
+            out.putInt(firstDayOfWeek.getValue());
+            categories.writeTo(out);
+            labels.writeTo(out);
+            expenses.writeTo(out);
+            incomes.writeTo(out);
+            out.putInt(rollups.length);
+            for (Rollup rollup : rollups) {
+                rollup.writeTo(out);
+            }
+            out.finish();
+            channel.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // What a snapshot holds once it has been read back
+    static final class Image {
+        long generation;
+        long nextId;
+        DayOfWeek firstDayOfWeek;
+        CategoryDictionary categories;
+        StringTable labels;
+        LedgerColumns expenses;
+        LedgerColumns incomes;
+        Rollup[] rollups;
+    }
+
+    //Mapping a snapshot file and reading it back, after checking its checksum
+    static Image read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < 28 || size > Integer.MAX_VALUE) {
+                throw new IOException("Ledger snapshot has a bad size: " + size);
+            }
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            CRC32 crc = new CRC32();
+            ByteBuffer body = in.duplicate();
+            body.limit((int) size - 4);
+            crc.update(body);
+            if ((int) crc.getValue() != in.getInt((int) size - 4)) {
+                throw new IOException("Ledger snapshot checksum does not match");
+            }
+            int magic = in.getInt();
+            int version = in.getInt();
+            if (magic != MAGIC || version != VERSION && version != VERSION_SUNDAY_WEEKS) {
+                throw new IOException("Not a ledger snapshot");
+            }
+            Image image = new Image();
+            image.generation = in.getLong();
+            image.nextId = in.getLong();
+            image.firstDayOfWeek = version == VERSION_SUNDAY_WEEKS ? DayOfWeek.SUNDAY : DayOfWeek.of(in.getInt());
+            image.categories = CategoryDictionary.readFrom(in);
+            image.labels = StringTable.readFrom(in);
+            image.expenses = LedgerColumns.readFrom(in);
+            image.incomes = LedgerColumns.readFrom(in);
+            image.rollups = new Rollup[in.getInt()];
+            for (int i = 0; i < image.rollups.length; i++) {
+                image.rollups[i] = Rollup.readFrom(in);
+            }
+            return image;
+        }
+    }
+
+    static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Buffered, checksummed writer for the snapshot file
+    static final class Output {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+        private final CRC32 crc = new CRC32();
+
+        Output(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        private ByteBuffer room(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                drain();
+            }
+            return buffer;
+        }
+
+        private void drain() throws IOException {
+            buffer.flip();
+            crc.update(buffer.duplicate());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        void putByte(byte value) throws IOException {
+            room(1).put(value);
+        }
+
+        void putShort(short value) throws IOException {
+            room(2).putShort(value);
+        }
+
+        void putInt(int value) throws IOException {
+            room(4).putInt(value);
+        }
+
+        void putLong(long value) throws IOException {
+            room(8).putLong(value);
+        }
+
+        void putString(String value) throws IOException {
+            if (value == null) {
+                putInt(-1);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            putInt(bytes.length);
+            for (int offset = 0; offset < bytes.length; ) {
+                int length = Math.min(bytes.length - offset, buffer.capacity());
+                room(length).put(bytes, offset, length);
+                offset += length;
+            }
+        }
+
+        //Writing out the buffer followed by the checksum of the whole file
+        void finish() throws IOException {
+            drain();
+            buffer.putInt((int) crc.getValue());
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+/**
+ * One of the Accountant's write stripes. A thread adding a record only locks the stripe its thread maps to, so
+ * writers on different stripes never wait for each other.
+ */
+
+package com.example.track2success;
+
+import java.util.Arrays;
+
+final class LedgerStripe {
+
+    // Receives the rows waiting in a stripe together with the ids they were given
+    interface Sink {
+        void store(LedgerBatch batch, long[] ids);
+    }
+
+    private LedgerBatch batch = new LedgerBatch();
+    private long[] ids = new long[256];
+    private volatile int size;
+
+    //Adding one row and returning how many rows are now waiting
+    synchronized int add(long id, boolean isExpense, int day, long cents, byte kind, String category, String name,
+                         String detail) {
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+        }
+        ids[size] = id;
+        batch.add(isExpense, day, cents, kind, category, name, detail);
+        size = batch.size();
+        return size;
+    }
+
+    // Read without the lock, only to skip stripes with nothing waiting
+    int size() {
+        return size;
+    }
+
+    //Handing every waiting row to the sink and starting again with an empty batch
+    synchronized void drainTo(Sink sink) {
+        if (size == 0) {
+            return;
+        }
+        sink.store(batch, ids);
+        batch = new LedgerBatch();
+        ids = new long[256];
+        size = 0;
+    }
+}
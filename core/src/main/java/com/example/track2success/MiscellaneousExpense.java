@@ -8,6 +8,10 @@ public class MiscellaneousExpense extends Expense {
         this.details = details;
     }
 
+    public String getDetails() {
+        return details;
+    }
+
 
     // Override the getDescription method to add details specific to MiscellaneousExpense
     @Override
@@ -8,6 +8,10 @@ public class MiscellaneousIncome extends Income {
         this.details = details;
     }
 
+    public String getDetails() {
+        return details;
+    }
+
 
     // Overriding the getDescription method to add details specific to MiscellaneousExpense
     @Override
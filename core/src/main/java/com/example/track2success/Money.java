@@ -0,0 +1,149 @@
+/**
+ * Amounts of money as whole cents in a long, which is how the ledger stores and adds them up.
+ */
+
+package com.example.track2success;
+
+public final class Money {
+
+    private Money() {
+    }
+
+    // Converting to and from dollars, only at the edges that still deal in doubles
+    public static long toCents(double dollars) {
+        return Math.round(dollars * 100);
+    }
+
+    public static double toDollars(long cents) {
+        return cents / 100.0;
+    }
+
+    //Reading an amount such as 12.5, -1,234.56 or $7 as whole cents.
+    public static long parse(CharSequence text) {
+        return parse(text, 0, text.length());
+    }
+
+    //Reading the amount in part of a text
+    public static long parse(CharSequence text, int from, int to) {
+        long cents = parse(null, text, from, to);
+        if (cents == Long.MIN_VALUE) {
+            throw new NumberFormatException("Not an amount: " + text.subSequence(from, to));
+        }
+        return cents;
+    }
+
+    //Reading an amount from the bytes of a statement, quotes and all, Long.MIN_VALUE if it is not a number
+    static long parse(byte[] bytes, int from, int to) {
+        return parse(bytes, null, from, to);
+    }
+
+    //One parser for bytes and for text, reading from whichever is given
+    private static long parse(byte[] bytes, CharSequence text, int from, int to) {
+        int i = from;
+        // Spaces, quotes, a dollar sign and a sign before the number, in any order
+        boolean negative = false;
+        boolean signed = false;
+        boolean dollar = false;
+        for (; i < to; i++) {
+            int c = charAt(bytes, text, i);
+            if ((c == '-' || c == '+') && !signed) {
+                signed = true;
+                negative = c == '-';
+            } else if (c == '$' && !dollar) {
+                dollar = true;
+            } else if (c != ' ' && c != '"') {
+                break;
+            }
+        }
+        // The whole units, with a comma only after the first one to three digits and then after every three
+        long units = 0;
+        int digits = 0;
+        int group = -1;
+        for (; i < to; i++) {
+            int c = charAt(bytes, text, i);
+            if (c >= '0' && c <= '9') {
+                if (units >= Long.MAX_VALUE / 1000 || group == 3) {
+                    return Long.MIN_VALUE;
+                }
+                units = units * 10 + (c - '0');
+                digits++;
+                group = group < 0 ? group : group + 1;
+            } else if (c == ',') {
+                if (group < 0 ? digits == 0 || digits > 3 : group != 3) {
+                    return Long.MIN_VALUE;
+                }
+                group = 0;
+            } else {
+                break;
+            }
+        }
+        if (group >= 0 && group != 3) {
+            return Long.MIN_VALUE;
+        }
+        // The cents, and whether the digit after them rounds up
+        int fraction = 0;
+        int fractionDigits = 0;
+        boolean roundUp = false;
+        if (i < to && charAt(bytes, text, i) == '.') {
+            for (i++; i < to; i++) {
+                int c = charAt(bytes, text, i);
+                if (c < '0' || c > '9') {
+                    break;
+                }
+                if (fractionDigits < 2) {
+                    fraction = fraction * 10 + (c - '0');
+                } else if (fractionDigits == 2) {
+                    roundUp = c >= '5';
+                }
+                fractionDigits++;
+            }
+        }
+        if (digits == 0 && fractionDigits == 0) {
+            return Long.MIN_VALUE;
+        }
+        // Only spaces and a closing quote may follow
+        for (; i < to; i++) {
+            int c = charAt(bytes, text, i);
+            if (c != ' ' && c != '"') {
+                return Long.MIN_VALUE;
+            }
+        }
+        if (fractionDigits == 1) {
+            fraction *= 10;
+        }
+        long cents = units * 100 + fraction + (roundUp ? 1 : 0);
+        return negative ? -cents : cents;
+    }
+
+    private static int charAt(byte[] bytes, CharSequence text, int i) {
+        return bytes != null ? bytes[i] : text.charAt(i);
+    }
+
+    //Writing cents as a plain decimal amount such as -1234.05, as statements and JSON carry them
+    public static StringBuilder appendDecimal(StringBuilder text, long cents) {
+        if (cents < 0) {
+            text.append('-');
+        }
+        return appendDigits(text, cents);
+    }
+
+    //Writing cents as a dollar amount such as $1234.05 or -$3.50, as reports and tables show them
+    public static StringBuilder appendDollars(StringBuilder text, long cents) {
+        if (cents < 0) {
+            text.append('-');
+        }
+        return appendDigits(text.append('$'), cents);
+    }
+
+    //The digits of an amount without its sign; the halves are made positive separately so Long.MIN_VALUE works too
+    private static StringBuilder appendDigits(StringBuilder text, long cents) {
+        long units = Math.abs(cents / 100);
+        int fraction = Math.abs((int) (cents % 100));
+        return text.append(units).append('.').append((char) ('0' + fraction / 10)).append((char) ('0' + fraction % 10));
+    }
+
+    //A dollar amount as text, for labels and table cells
+    public static String format(long cents) {
+        return appendDollars(new StringBuilder(24), cents).toString();
+    }
+}
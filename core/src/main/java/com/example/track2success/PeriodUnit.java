@@ -0,0 +1,135 @@
+/**
+ * The lengths of period the ledger adds totals up by, from a day to a year, with the arithmetic for where each one
+ * starts. A period is named by its first epoch day, so every kind of period keys a Rollup the same way.
+ */
+
+package com.example.track2success;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+public enum PeriodUnit {
+    DAY, WEEK, MONTH, QUARTER, YEAR;
+
+    //The unit matching a ChronoUnit of days, weeks, months or years
+    public static PeriodUnit of(ChronoUnit unit) {
+        switch (unit) {
+            case DAYS:
+                return DAY;
+            case WEEKS:
+                return WEEK;
+            case MONTHS:
+                return MONTH;
+            case YEARS:
+                return YEAR;
+            default:
+                throw new IllegalArgumentException("Totals are kept per day, week, month, quarter or year, not per "
+                        + unit);
+        }
+    }
+
+    //Reading a unit named in the plural, as the command line and the server take them (days, weeks, ...)
+    static PeriodUnit parse(String periods) {
+        for (PeriodUnit unit : values()) {
+            if (periods.equals(unit.name().toLowerCase() + "s")) {
+                return unit;
+            }
+        }
+        throw new IllegalArgumentException("Totals are per days, weeks, months, quarters or years, not " + periods);
+    }
+
+    //The first day of the period holding a date
+    public LocalDate start(LocalDate date, DayOfWeek firstDayOfWeek) {
+        return LocalDate.ofEpochDay(start((int) date.toEpochDay(), firstDayOfWeek));
+    }
+
+    //The epoch day starting the period that holds an epoch day
+    int start(int epochDay, DayOfWeek firstDayOfWeek) {
+        switch (this) {
+            case DAY:
+                return epochDay;
+            case WEEK:
+                // 1970-01-01 was a Thursday, day 4 of an ISO week
+                return epochDay - Math.floorMod(epochDay + 4 - firstDayOfWeek.getValue(), 7);
+            default:
+                int month = monthIndex(epochDay);
+                return firstDayOf(month - Math.floorMod(month, months()));
+        }
+    }
+
+    //The epoch day starting the period after the one starting on a given day
+    int next(int start) {
+        switch (this) {
+            case DAY:
+                return start + 1;
+            case WEEK:
+                return start + 7;
+            default:
+                return firstDayOf(monthIndex(start) + months());
+        }
+    }
+
+    //The epoch day a number of these units after another one, as LocalDate.plus does it: a month after the 31st of
+    //January is the last day of February
+    int plus(int epochDay, long count) {
+        switch (this) {
+            case DAY:
+                return (int) (epochDay + count);
+            case WEEK:
+                return (int) (epochDay + 7 * count);
+            default:
+                int month = monthIndex(epochDay);
+                int dayOfMonth = epochDay - firstDayOf(month);
+                int target = (int) (month + count * months());
+                int first = firstDayOf(target);
+                return first + Math.min(dayOfMonth, firstDayOf(target + 1) - first - 1);
+        }
+    }
+
+    //The whole units from one epoch day to a later one, so that plus(from, count) is no later than to.
+    long between(int from, int to) {
+        switch (this) {
+            case DAY:
+                return (long) to - from;
+            case WEEK:
+                return Math.floorDiv((long) to - from, 7);
+            default:
+                int fromMonth = monthIndex(from);
+                int toMonth = monthIndex(to);
+                long months = toMonth - fromMonth;
+                if (to - firstDayOf(toMonth) < from - firstDayOf(fromMonth)) {
+                    months--;
+                }
+                return Math.floorDiv(months, months());
+        }
+    }
+
+    private int months() {
+        return this == MONTH ? 1 : this == QUARTER ? 3 : 12;
+    }
+
+    //The months from January of year 0 to the month of an epoch day (year * 12 + month - 1), from the civil calendar
+    //worked out in whole 400 year eras with months counted from March, so the leap day comes last
+    private static int monthIndex(int epochDay) {
+        long days = epochDay + 719468L;
+        long era = Math.floorDiv(days, 146097);
+        int dayOfEra = (int) (days - era * 146097);
+        int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        int marchMonth = (5 * dayOfYear + 2) / 153;
+        long year = yearOfEra + era * 400 + (marchMonth >= 10 ? 1 : 0);
+        return (int) (year * 12 + (marchMonth < 10 ? marchMonth + 2 : marchMonth - 10));
+    }
+
+    //The epoch day of the first of a month, the other way round
+    private static int firstDayOf(int monthIndex) {
+        int month = Math.floorMod(monthIndex, 12) + 1;
+        long year = Math.floorDiv(monthIndex, 12) - (month <= 2 ? 1 : 0);
+        long era = Math.floorDiv(year, 400);
+        int yearOfEra = (int) (year - era * 400);
+        int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return (int) (era * 146097 + dayOfEra - 719468);
+    }
+}
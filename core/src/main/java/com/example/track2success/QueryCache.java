@@ -0,0 +1,120 @@
+/**
+ * Answers to Accountant queries kept for when the same question comes again, which the graph, the report and the
+ * server do many times between changes.
+ */
+
+package com.example.track2success;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+final class QueryCache {
+
+    // Queries that can be cached
+    static final byte DAILY_TOTALS = 1;
+    static final byte SORTED_DAILY_TOTALS = 2;
+    static final byte DAILY_SAVINGS = 3;
+    static final byte CUMULATIVE_SAVINGS = 4;
+    static final byte RECORDS_BETWEEN = 5;
+    static final byte CATEGORY_TOTALS = 6;
+    static final byte SERIES = 7;
+
+    // Which side of the ledger a query reads
+    static final byte EXPENSES = 1;
+    static final byte INCOMES = 2;
+    static final byte BOTH = EXPENSES | INCOMES;
+
+    private static final int MAX_ENTRIES = 512;
+    private static final long MAX_ELEMENTS = 1 << 18;
+
+    // A query: what is asked, the side it reads, the days its answer depends on, an optional category id (-1 for
+    // all) and a period length for series
+    static final class Key {
+        final byte query;
+        final byte sides;
+        final int from;
+        final int to;
+        final int category;
+        final int period;
+
+        Key(byte query, byte sides, int from, int to, int category, int period) {
+            this.query = query;
+            this.sides = sides;
+            this.from = from;
+            this.to = to;
+            this.category = category;
+            this.period = period;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) other;
+            return query == key.query && sides == key.sides && from == key.from && to == key.to
+                    && category == key.category && period == key.period;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = query * 31 + sides;
+            hash = hash * 31 + from;
+            hash = hash * 31 + to;
+            hash = hash * 31 + category;
+            return hash * 31 + period;
+        }
+    }
+
+    private static final class Entry {
+        final Object answer;
+        final long version;
+        final long elements;
+
+        Entry(Object answer, long version, long elements) {
+            this.answer = answer;
+            this.version = version;
+            this.elements = elements;
+        }
+    }
+
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long elements;
+
+    //The cached answer to a query if it was worked out at or after the given version, otherwise null
+    synchronized Object get(Key key, long changedAt) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.version < changedAt) {
+            entries.remove(key);
+            elements -= entry.elements;
+            return null;
+        }
+        return entry.answer;
+    }
+
+    //Keeping an answer worked out at a version, with its size in elements (map entries, list items)
+    synchronized void put(Key key, Object answer, long version, long size) {
+        if (size > MAX_ELEMENTS / 4) {
+            return;
+        }
+        Entry old = entries.put(key, new Entry(answer, version, size));
+        elements += size - (old == null ? 0 : old.elements);
+        Iterator<Entry> leastRecent = entries.values().iterator();
+        while ((entries.size() > MAX_ENTRIES || elements > MAX_ELEMENTS) && leastRecent.hasNext()) {
+            elements -= leastRecent.next().elements;
+            leastRecent.remove();
+        }
+    }
+
+    synchronized void clear() {
+        entries.clear();
+        elements = 0;
+    }
+
+    synchronized long elements() {
+        return elements;
+    }
+}
@@ -0,0 +1,144 @@
+/**
+ * Maps the Expense and Income subclasses to the small codes kept in the ledger columns, and rebuilds the right
+ * subclass from a stored row when an object is needed again.
+ */
+
+package com.example.track2success;
+
+final class RecordKind {
+
+    static final byte EXPENSE = 0;
+    static final byte GROCERIES = 1;
+    static final byte UTILITIES = 2;
+    static final byte ENTERTAINMENT = 3;
+    static final byte MISCELLANEOUS_EXPENSE = 4;
+
+    static final byte INCOME = 0;
+    static final byte SALARY = 1;
+    static final byte STOCK_GROWTH = 2;
+    static final byte MISCELLANEOUS_INCOME = 3;
+
+    private RecordKind() {
+    }
+
+    static byte of(Expense expense) {
+        if (expense instanceof Groceries) {
+            return GROCERIES;
+        } else if (expense instanceof Utilities) {
+            return UTILITIES;
+        } else if (expense instanceof Entertainment) {
+            return ENTERTAINMENT;
+        } else if (expense instanceof MiscellaneousExpense) {
+            return MISCELLANEOUS_EXPENSE;
+        }
+        return EXPENSE;
+    }
+
+    static byte of(Income income) {
+        if (income instanceof Salary) {
+            return SALARY;
+        } else if (income instanceof StockGrowth) {
+            return STOCK_GROWTH;
+        } else if (income instanceof MiscellaneousIncome) {
+            return MISCELLANEOUS_INCOME;
+        }
+        return INCOME;
+    }
+
+    //Returning the subclass specific text (utility type, entertainment type or details), null if there is none
+    static String detailOf(Expense expense) {
+        if (expense instanceof Utilities) {
+            return ((Utilities) expense).getUtilityType();
+        } else if (expense instanceof Entertainment) {
+            return ((Entertainment) expense).getType();
+        } else if (expense instanceof MiscellaneousExpense) {
+            return ((MiscellaneousExpense) expense).getDetails();
+        }
+        return null;
+    }
+
+    static String detailOf(Income income) {
+        if (income instanceof MiscellaneousIncome) {
+            return ((MiscellaneousIncome) income).getDetails();
+        }
+        return null;
+    }
+
+    //Picking the subclass the expense form would create for a category name
+    static byte expenseKindFor(String category) {
+        if (category == null) {
+            return EXPENSE;
+        }
+        switch (category) {
+            case "Groceries":
+                return GROCERIES;
+            case "Utilities":
+                return UTILITIES;
+            case "Entertainment":
+                return ENTERTAINMENT;
+            case "Miscellaneous":
+                return MISCELLANEOUS_EXPENSE;
+            default:
+                return EXPENSE;
+        }
+    }
+
+    //Picking the subclass the income form would create for a category name
+    static byte incomeKindFor(String category) {
+        if (category == null) {
+            return INCOME;
+        }
+        switch (category) {
+            case "Salary":
+                return SALARY;
+            case "Stock Growth":
+                return STOCK_GROWTH;
+            case "Miscellaneous":
+                return MISCELLANEOUS_INCOME;
+            default:
+                return INCOME;
+        }
+    }
+
+    //Building a record of a kind; the amount is set in cents afterwards, so it never passes through a double
+    static Expense newExpense(byte kind, String name, long cents, String date, String detail, String category) {
+        Expense expense;
+        switch (kind) {
+            case GROCERIES:
+                expense = new Groceries(name, 0, date, category);
+                break;
+            case UTILITIES:
+                expense = new Utilities(name, 0, date, detail, category);
+                break;
+            case ENTERTAINMENT:
+                expense = new Entertainment(name, 0, date, detail, category);
+                break;
+            case MISCELLANEOUS_EXPENSE:
+                expense = new MiscellaneousExpense(name, 0, date, detail, category);
+                break;
+            default:
+                expense = new Expense(name, 0, date, category);
+        }
+        expense.setCents(cents);
+        return expense;
+    }
+
+    static Income newIncome(byte kind, long cents, String date, String detail, String category) {
+        Income income;
+        switch (kind) {
+            case SALARY:
+                income = new Salary(0, date, category);
+                break;
+            case STOCK_GROWTH:
+                income = new StockGrowth(0, date, category);
+                break;
+            case MISCELLANEOUS_INCOME:
+                income = new MiscellaneousIncome(0, date, detail);
+                break;
+            default:
+                income = new Income(0, date, category);
+        }
+        income.setCents(cents);
+        return income;
+    }
+}
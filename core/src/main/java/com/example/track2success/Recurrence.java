@@ -0,0 +1,172 @@
+/**
+ * An expense or income that comes back every so many days, weeks, months, quarters or years, such as a salary paid
+ * every two weeks or a utility bill due every month, from its first date on and optionally up to a last one.
+ */
+
+package com.example.track2success;
+
+import java.time.LocalDate;
+import java.util.Objects;
+
+public final class Recurrence {
+
+    // The record repeated, as the ledger columns keep it
+    private final boolean isExpense;
+    private final byte kind;
+    private final String category;
+    private final String name;
+    private final String detail;
+    private final long cents;
+
+    // Epoch days of the first occurrence and of the last day one may fall on (Integer.MAX_VALUE for no end), and
+    // the step between occurrences
+    private final int firstDay;
+    private final int lastDay;
+    private final PeriodUnit unit;
+    private final int every;
+
+    //Repeating an expense from its date on, every so many units, up to a last date or for good when it is null
+    public Recurrence(Expense first, PeriodUnit unit, int every, LocalDate until) {
+        this(true, RecordKind.of(first), first.getCategory(), first.getName(), RecordKind.detailOf(first),
+                first.getCents(), (int) LocalDate.parse(first.getDate()).toEpochDay(), lastDay(until), unit, every);
+    }
+
+    //Repeating an income from its date on
+    public Recurrence(Income first, PeriodUnit unit, int every, LocalDate until) {
+        this(false, RecordKind.of(first), first.getCategory(), null, RecordKind.detailOf(first), first.getCents(),
+                (int) LocalDate.parse(first.getDate()).toEpochDay(), lastDay(until), unit, every);
+    }
+
+    Recurrence(boolean isExpense, byte kind, String category, String name, String detail, long cents, int firstDay,
+               int lastDay, PeriodUnit unit, int every) {
+        if (every < 1) {
+            throw new IllegalArgumentException("A recurrence must step on by at least one " + unit + ", not " + every);
+        }
+        if (lastDay < firstDay) {
+            throw new IllegalArgumentException("A recurrence cannot end before " + LocalDate.ofEpochDay(firstDay));
+        }
+        this.isExpense = isExpense;
+        this.kind = kind;
+        this.category = category;
+        this.name = name;
+        this.detail = detail;
+        this.cents = cents;
+        this.firstDay = firstDay;
+        this.lastDay = lastDay;
+        this.unit = Objects.requireNonNull(unit, "unit");
+        this.every = every;
+    }
+
+    private static int lastDay(LocalDate until) {
+        return until == null ? Integer.MAX_VALUE : (int) until.toEpochDay();
+    }
+
+    public boolean isExpense() {
+        return isExpense;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    //Name of a repeated expense, null for an income
+    public String getName() {
+        return name;
+    }
+
+    public long getCents() {
+        return cents;
+    }
+
+    public LocalDate getFirstDate() {
+        return LocalDate.ofEpochDay(firstDay);
+    }
+
+    //Last date an occurrence may fall on, null when the recurrence has no end
+    public LocalDate getUntil() {
+        return lastDay == Integer.MAX_VALUE ? null : LocalDate.ofEpochDay(lastDay);
+    }
+
+    public PeriodUnit getUnit() {
+        return unit;
+    }
+
+    public int getEvery() {
+        return every;
+    }
+
+    // Record fields for the Accountant
+    byte kind() {
+        return kind;
+    }
+
+    String detail() {
+        return detail;
+    }
+
+    int firstDay() {
+        return firstDay;
+    }
+
+    int lastDay() {
+        return lastDay;
+    }
+
+    //Epoch day of occurrence n, counting the first as 0, whether or not it is past the end
+    int dayOf(long n) {
+        return unit.plus(firstDay, n * every);
+    }
+
+    //The number of the first occurrence on or after an epoch day, without stepping through the ones before it
+    long indexFrom(int day) {
+        if (day <= firstDay) {
+            return 0;
+        }
+        long n = unit.between(firstDay, day) / every;
+        while (dayOf(n) < day) {
+            n++;
+        }
+        return n;
+    }
+
+    //Building the occurrence on a day as the record the ledger would hold for it
+    Expense expenseOn(int day) {
+        return RecordKind.newExpense(kind, name, cents, LocalDate.ofEpochDay(day).toString(), detail, category);
+    }
+
+    Income incomeOn(int day) {
+        return RecordKind.newIncome(kind, cents, LocalDate.ofEpochDay(day).toString(), detail, category);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof Recurrence)) {
+            return false;
+        }
+        Recurrence recurrence = (Recurrence) other;
+        return isExpense == recurrence.isExpense && kind == recurrence.kind
+                && Objects.equals(category, recurrence.category) && Objects.equals(name, recurrence.name)
+                && Objects.equals(detail, recurrence.detail) && cents == recurrence.cents
+                && firstDay == recurrence.firstDay && lastDay == recurrence.lastDay && unit == recurrence.unit
+                && every == recurrence.every;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(isExpense, kind, category, name, detail, cents, firstDay, lastDay, unit, every);
+    }
+
+    //Reading as the recurrence is shown in lists, such as Salary: $2,000.00 every 2 weeks from 2024-01-05
+    @Override
+    public String toString() {
+        String step = unit.name().toLowerCase();
+        StringBuilder text = new StringBuilder();
+        text.append(name == null || name.isEmpty() ? category : category + " " + name).append(": ")
+                .append(Money.format(cents)).append(" every ").append(every == 1 ? step : every + " " + step + "s")
+                .append(" from ").append(LocalDate.ofEpochDay(firstDay));
+        if (lastDay != Integer.MAX_VALUE) {
+            text.append(" until ").append(LocalDate.ofEpochDay(lastDay));
+        }
+        return text.toString();
+    }
+}
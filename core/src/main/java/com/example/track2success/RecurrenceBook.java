@@ -0,0 +1,224 @@
+/**
+ * The recurrences of an Accountant and how far each has been added to the ledger.
+ */
+
+package com.example.track2success;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+final class RecurrenceBook {
+
+    // Told of every occurrence in a range that is not in the ledger yet, recurrence by recurrence in date order
+    interface Occurrences {
+        void occurrence(Recurrence recurrence, int day);
+    }
+
+    // A recurrence, how many of its occurrences are in the ledger, and the day of the next one (Integer.MAX_VALUE
+    // once it has ended)
+    private static final class Schedule {
+        final Recurrence recurrence;
+        long added;
+        int nextDay;
+
+        Schedule(Recurrence recurrence, long added) {
+            this.recurrence = recurrence;
+            setAdded(added);
+        }
+
+        void setAdded(long added) {
+            this.added = added;
+            int day = recurrence.dayOf(added);
+            nextDay = day > recurrence.lastDay() ? Integer.MAX_VALUE : day;
+        }
+    }
+
+    private final List<Schedule> schedules = new ArrayList<>();
+
+    //Adding a recurrence unless an equal one is there; none of its occurrences is in the ledger yet
+    boolean add(Recurrence recurrence) {
+        for (Schedule schedule : schedules) {
+            if (schedule.recurrence.equals(recurrence)) {
+                return false;
+            }
+        }
+        schedules.add(new Schedule(recurrence, 0));
+        return true;
+    }
+
+    //Taking a recurrence away; the occurrences already added stay in the ledger
+    boolean remove(Recurrence recurrence) {
+        for (int i = 0; i < schedules.size(); i++) {
+            if (schedules.get(i).recurrence.equals(recurrence)) {
+                schedules.remove(i);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    boolean isEmpty() {
+        return schedules.isEmpty();
+    }
+
+    List<Recurrence> recurrences() {
+        List<Recurrence> recurrences = new ArrayList<>(schedules.size());
+        for (Schedule schedule : schedules) {
+            recurrences.add(schedule.recurrence);
+        }
+        return recurrences;
+    }
+
+    //Putting every occurrence up to and including an epoch day that is not in the ledger yet into a batch, with
+    //the recurrence of each row in sources, and counting it as added.
+    int due(int today, LedgerBatch batch, List<Recurrence> sources) {
+        int rows = 0;
+        for (Schedule schedule : schedules) {
+            Recurrence recurrence = schedule.recurrence;
+            while (schedule.nextDay <= today) {
+                batch.add(recurrence.isExpense(), schedule.nextDay, recurrence.getCents(), recurrence.kind(),
+                        recurrence.getCategory(), recurrence.getName(), recurrence.detail());
+                sources.add(recurrence);
+                schedule.setAdded(schedule.added + 1);
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    //Counting an occurrence read back from the journal as added, unless the count already holds it
+    void replayed(Recurrence recurrence, int day) {
+        for (Schedule schedule : schedules) {
+            if (schedule.recurrence.equals(recurrence)) {
+                schedule.setAdded(Math.max(schedule.added, recurrence.indexFrom(day) + 1));
+                return;
+            }
+        }
+    }
+
+    //The epoch day the next occurrence falls due, Integer.MAX_VALUE when none is left
+    int nextDue() {
+        int next = Integer.MAX_VALUE;
+        for (Schedule schedule : schedules) {
+            next = Math.min(next, schedule.nextDay);
+        }
+        return next;
+    }
+
+    //The total of the occurrences from one epoch day to another (both included) that are not in the ledger yet, of
+    //expenses or incomes, for one category or all when category is null.
+    long sum(boolean isExpense, int from, int to, String category) {
+        long total = 0;
+        for (Schedule schedule : schedules) {
+            Recurrence recurrence = schedule.recurrence;
+            int first = Math.max(from, schedule.nextDay);
+            int last = Math.min(to, recurrence.lastDay());
+            if (recurrence.isExpense() != isExpense || first > last
+                    || category != null && !category.equals(recurrence.getCategory())) {
+                continue;
+            }
+            total += (recurrence.indexFrom(last + 1) - recurrence.indexFrom(first)) * recurrence.getCents();
+        }
+        return total;
+    }
+
+    //Visiting the occurrences from one epoch day to another that are not in the ledger yet, like sum
+    void visit(boolean isExpense, int from, int to, String category, Occurrences visitor) {
+        for (Schedule schedule : schedules) {
+            Recurrence recurrence = schedule.recurrence;
+            int first = Math.max(from, schedule.nextDay);
+            int last = Math.min(to, recurrence.lastDay());
+            if (recurrence.isExpense() != isExpense || first > last
+                    || category != null && !category.equals(recurrence.getCategory())) {
+                continue;
+            }
+            for (long n = recurrence.indexFrom(first); ; n++) {
+                int day = recurrence.dayOf(n);
+                if (day > last) {
+                    break;
+                }
+                visitor.occurrence(recurrence, day);
+            }
+        }
+    }
+
+    // Kept in a small CSV file, one recurrence per line with the number of its occurrences already added.
+    void writeTo(Path file) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+            writer.write("side,kind,category,name,detail,amount,first,until,unit,every,added\n");
+            StringBuilder line = new StringBuilder(128);
+            for (Schedule schedule : schedules) {
+                Recurrence recurrence = schedule.recurrence;
+                line.setLength(0);
+                line.append(recurrence.isExpense() ? "expense" : "income").append(',').append(recurrence.kind())
+                        .append(',');
+                LedgerExport.appendField(line, recurrence.getCategory());
+                line.append(',');
+                LedgerExport.appendField(line, recurrence.getName());
+                line.append(',');
+                LedgerExport.appendField(line, recurrence.detail());
+                line.append(',').append(recurrence.getCents()).append(',').append(recurrence.getFirstDate())
+                        .append(',').append(Objects.toString(recurrence.getUntil(), "")).append(',')
+                        .append(recurrence.getUnit()).append(',').append(recurrence.getEvery()).append(',')
+                        .append(schedule.added).append('\n');
+                writer.append(line);
+            }
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    void readFrom(Path file) throws IOException {
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        for (String line : lines.subList(Math.min(1, lines.size()), lines.size())) {
+            List<String> fields = fields(line);
+            if (fields.size() != 11) {
+                throw new IOException("Not a recurrence: " + line);
+            }
+            try {
+                String until = fields.get(7);
+                Recurrence recurrence = new Recurrence(fields.get(0).equals("expense"),
+                        Byte.parseByte(fields.get(1)), fields.get(2), fields.get(3), fields.get(4),
+                        Long.parseLong(fields.get(5)), (int) LocalDate.parse(fields.get(6)).toEpochDay(),
+                        until == null ? Integer.MAX_VALUE : (int) LocalDate.parse(until).toEpochDay(),
+                        PeriodUnit.valueOf(fields.get(8)), Integer.parseInt(fields.get(9)));
+                schedules.add(new Schedule(recurrence, Long.parseLong(fields.get(10))));
+            } catch (RuntimeException e) {
+                throw new IOException("Not a recurrence: " + line, e);
+            }
+        }
+    }
+
+    //Splitting a line at the commas outside quotes, unquoting the fields and reading empty ones as null
+    private static List<String> fields(String line) {
+        List<String> fields = new ArrayList<>(11);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                if (quoted && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = !quoted;
+                }
+            } else if (c == ',' && !quoted) {
+                fields.add(field.length() == 0 ? null : field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.length() == 0 ? null : field.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,256 @@
+/**
+ * Running totals of a ledger, bucketed by an int key (the epoch day a day, week or month starts on, see PeriodUnit)
+ * and by category id.
+ */
+
+package com.example.track2success;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.DayOfWeek;
+import java.util.Arrays;
+
+final class Rollup {
+
+    // Open addressing table from key to bucket index + 1, zero marks an empty slot
+    private int[] tableKeys = new int[64];
+    private int[] tableBuckets = new int[64];
+
+    // Buckets in the order they were first used
+    private int bucketCount;
+    private int[] bucketKeys = new int[32];
+    private long[] bucketTotals = new long[32];
+    private int[] bucketRows = new int[32];
+    private long[][] categorySums = new long[32][];
+    private int[][] categoryRows = new int[32][];
+
+    // Changes per bucket, and the changes each bucket had when its report was last written
+    private int[] changes = new int[32];
+    private int[] reported = new int[32];
+
+    // Totals per category over every bucket
+    private long[] grandSums = new long[8];
+    private int[] grandRows = new int[8];
+
+    //Adding (rows = 1) or taking back (rows = -1 and a negated amount) one record
+    void add(int key, int category, long cents, int rows) {
+        int bucket = bucketFor(key);
+        bucketTotals[bucket] += cents;
+        bucketRows[bucket] += rows;
+        changes[bucket]++;
+        if (category >= categorySums[bucket].length) {
+            int length = Math.max(category + 1, categorySums[bucket].length * 2);
+            categorySums[bucket] = Arrays.copyOf(categorySums[bucket], length);
+            categoryRows[bucket] = Arrays.copyOf(categoryRows[bucket], length);
+        }
+        categorySums[bucket][category] += cents;
+        categoryRows[bucket][category] += rows;
+        if (category >= grandSums.length) {
+            int length = Math.max(category + 1, grandSums.length * 2);
+            grandSums = Arrays.copyOf(grandSums, length);
+            grandRows = Arrays.copyOf(grandRows, length);
+        }
+        grandSums[category] += cents;
+        grandRows[category] += rows;
+    }
+
+    //Finding the bucket for a key, creating it on first use
+    private int bucketFor(int key) {
+        int mask = tableKeys.length - 1;
+        int slot = mix(key) & mask;
+        while (tableBuckets[slot] != 0) {
+            if (tableKeys[slot] == key) {
+                return tableBuckets[slot] - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        int bucket = bucketCount++;
+        if (bucket == bucketKeys.length) {
+            int length = bucket * 2;
+            bucketKeys = Arrays.copyOf(bucketKeys, length);
+            bucketTotals = Arrays.copyOf(bucketTotals, length);
+            bucketRows = Arrays.copyOf(bucketRows, length);
+            categorySums = Arrays.copyOf(categorySums, length);
+            categoryRows = Arrays.copyOf(categoryRows, length);
+            changes = Arrays.copyOf(changes, length);
+            reported = Arrays.copyOf(reported, length);
+        }
+        bucketKeys[bucket] = key;
+        categorySums[bucket] = new long[grandSums.length];
+        categoryRows[bucket] = new int[grandSums.length];
+        tableKeys[slot] = key;
+        tableBuckets[slot] = bucket + 1;
+        if (bucketCount * 2 > tableKeys.length) {
+            rehash();
+        }
+        return bucket;
+    }
+
+    //A rollup of the buckets keyed from one day to another added up per period of a unit, each period keyed by its
+    //first day.
+    Rollup coarsen(PeriodUnit unit, DayOfWeek firstDayOfWeek, int from, int to) {
+        Rollup coarse = new Rollup();
+        for (int bucket = 0; bucket < bucketCount; bucket++) {
+            int key = bucketKeys[bucket];
+            if (key < from || key > to || bucketRows[bucket] == 0) {
+                continue;
+            }
+            int period = unit.start(key, firstDayOfWeek);
+            for (int category = 0; category < categorySums[bucket].length; category++) {
+                if (categoryRows[bucket][category] != 0) {
+                    coarse.add(period, category, categorySums[bucket][category], categoryRows[bucket][category]);
+                }
+            }
+        }
+        return coarse;
+    }
+
+    //Returning the bucket of a key, or -1 if the key was never used
+    int find(int key) {
+        int mask = tableKeys.length - 1;
+        int slot = mix(key) & mask;
+        while (tableBuckets[slot] != 0) {
+            if (tableKeys[slot] == key) {
+                return tableBuckets[slot] - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void rehash() {
+        int[] keys = new int[tableKeys.length * 2];
+        int[] buckets = new int[keys.length];
+        int mask = keys.length - 1;
+        for (int bucket = 0; bucket < bucketCount; bucket++) {
+            int slot = mix(bucketKeys[bucket]) & mask;
+            while (buckets[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = bucketKeys[bucket];
+            buckets[slot] = bucket + 1;
+        }
+        tableKeys = keys;
+        tableBuckets = buckets;
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    // Bucket accessors, a bucket whose rows dropped back to zero has no records left in it
+    int bucketCount() {
+        return bucketCount;
+    }
+
+    int key(int bucket) {
+        return bucketKeys[bucket];
+    }
+
+    long total(int bucket) {
+        return bucketTotals[bucket];
+    }
+
+    int rows(int bucket) {
+        return bucketRows[bucket];
+    }
+
+    long categorySum(int bucket, int category) {
+        return category < categorySums[bucket].length ? categorySums[bucket][category] : 0;
+    }
+
+    int categoryRows(int bucket, int category) {
+        return category < categoryRows[bucket].length ? categoryRows[bucket][category] : 0;
+    }
+
+    boolean isDirty(int bucket) {
+        return changes[bucket] != reported[bucket];
+    }
+
+    int changes(int bucket) {
+        return changes[bucket];
+    }
+
+    //Marking a bucket as reported the way it was after a number of changes, so a change made since keeps it dirty
+    void markReported(int bucket, int changes) {
+        reported[bucket] = changes;
+    }
+
+    //Rough heap size: the hash table, and per bucket its totals and a sum and row count for every category
+    long estimatedBytes() {
+        return tableKeys.length * 8L + bucketKeys.length * (17L + 12L * grandSums.length);
+    }
+
+    // Totals over all buckets
+    int categoryCount() {
+        return grandSums.length;
+    }
+
+    long grandSum(int category) {
+        return grandSums[category];
+    }
+
+    int grandRows(int category) {
+        return grandRows[category];
+    }
+
+    //Writing every bucket with its per category sums, so a snapshot does not have to rebuild the totals
+    void writeTo(LedgerSnapshot.Output out) throws IOException {
+        out.putInt(grandSums.length);
+        for (int category = 0; category < grandSums.length; category++) {
+            out.putLong(grandSums[category]);
+            out.putInt(grandRows[category]);
+        }
+        out.putInt(bucketCount);
+        for (int bucket = 0; bucket < bucketCount; bucket++) {
+            out.putInt(bucketKeys[bucket]);
+            out.putLong(bucketTotals[bucket]);
+            out.putInt(bucketRows[bucket]);
+            out.putInt(categorySums[bucket].length);
+            for (int category = 0; category < categorySums[bucket].length; category++) {
+                out.putLong(categorySums[bucket][category]);
+                out.putInt(categoryRows[bucket][category]);
+            }
+        }
+    }
+
+    static Rollup readFrom(ByteBuffer in) {
+        Rollup rollup = new Rollup();
+        int categories = in.getInt();
+        rollup.grandSums = new long[Math.max(categories, 1)];
+        rollup.grandRows = new int[rollup.grandSums.length];
+        for (int category = 0; category < categories; category++) {
+            rollup.grandSums[category] = in.getLong();
+            rollup.grandRows[category] = in.getInt();
+        }
+        int buckets = in.getInt();
+        int capacity = Math.max(32, Integer.highestOneBit(Math.max(buckets, 1)) * 2);
+        rollup.bucketKeys = new int[capacity];
+        rollup.bucketTotals = new long[capacity];
+        rollup.bucketRows = new int[capacity];
+        rollup.categorySums = new long[capacity][];
+        rollup.categoryRows = new int[capacity][];
+        rollup.changes = new int[capacity];
+        rollup.reported = new int[capacity];
+        // Nothing is known about report files written before the snapshot, so every bucket starts out dirty
+        Arrays.fill(rollup.changes, 1);
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            rollup.bucketKeys[bucket] = in.getInt();
+            rollup.bucketTotals[bucket] = in.getLong();
+            rollup.bucketRows[bucket] = in.getInt();
+            int width = in.getInt();
+            rollup.categorySums[bucket] = new long[width];
+            rollup.categoryRows[bucket] = new int[width];
+            for (int category = 0; category < width; category++) {
+                rollup.categorySums[bucket][category] = in.getLong();
+                rollup.categoryRows[bucket][category] = in.getInt();
+            }
+        }
+        rollup.bucketCount = buckets;
+        rollup.tableKeys = new int[capacity];
+        rollup.tableBuckets = new int[capacity];
+        rollup.rehash();
+        return rollup;
+    }
+}
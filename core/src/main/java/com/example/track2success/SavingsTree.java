@@ -0,0 +1,79 @@
+/**
+ * Net savings per epoch day kept in a Fenwick (binary indexed) tree, so the running balance up to any day and the
+ * change caused by one record both cost O(log days).
+ */
+
+package com.example.track2success;
+
+final class SavingsTree {
+
+    // First day covered, the net of each covered day, and the Fenwick tree over those values (1-based)
+    private int base;
+    private long[] values = new long[0];
+    private long[] tree = new long[1];
+
+    //Adding cents to the net of one day
+    void add(int day, long cents) {
+        if (cents == 0) {
+            return;
+        }
+        if (values.length == 0 || day < base || day >= base + values.length) {
+            cover(day);
+        }
+        int index = day - base;
+        values[index] += cents;
+        for (int i = index + 1; i < tree.length; i += i & -i) {
+            tree[i] += cents;
+        }
+    }
+
+    //Running balance: the sum of every day up to and including the given one
+    long balanceThrough(int day) {
+        if (values.length == 0 || day < base) {
+            return 0;
+        }
+        long sum = 0;
+        for (int i = Math.min(day - base + 1, values.length); i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    //Running balance at the end of every day in [from, to]: one prefix query, then a walk over the days
+    long[] balances(int from, int to) {
+        long[] result = new long[Math.max(0, to - from + 1)];
+        long balance = balanceThrough(from - 1);
+        for (int day = from; day <= to; day++) {
+            int index = day - base;
+            if (index >= 0 && index < values.length) {
+                balance += values[index];
+            }
+            result[day - from] = balance;
+        }
+        return result;
+    }
+
+    //Growing the window to take in a day, keeping some room on both sides for the next ones
+    private void cover(int day) {
+        int oldBase = base;
+        long[] oldValues = values;
+        int first = values.length == 0 ? day : Math.min(base, day);
+        int last = values.length == 0 ? day : Math.max(base + values.length - 1, day);
+        int span = last - first + 1;
+        int room = Math.max(366, span / 2);
+        base = first - (day < oldBase || values.length == 0 ? room : 0);
+        values = new long[span + room * (values.length == 0 ? 2 : 1)];
+        if (oldValues.length > 0) {
+            System.arraycopy(oldValues, 0, values, oldBase - base, oldValues.length);
+        }
+        // Building the tree bottom up in linear time
+        tree = new long[values.length + 1];
+        System.arraycopy(values, 0, tree, 1, values.length);
+        for (int i = 1; i < tree.length; i++) {
+            int parent = i + (i & -i);
+            if (parent < tree.length) {
+                tree[parent] += tree[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,381 @@
+/**
+ * Bulk import of bank statement CSV files into an Accountant.
+ */
+
+package com.example.track2success;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class StatementImporter {
+
+    private static final int BLOCK_SIZE = 4 << 20;
+    private static final String DEFAULT_CATEGORY = "Miscellaneous";
+
+    private final Accountant accountant;
+    private final int threads;
+    private final AtomicLong rejectedRows = new AtomicLong();
+
+    public StatementImporter(Accountant accountant) {
+        this(accountant, Runtime.getRuntime().availableProcessors());
+    }
+
+    public StatementImporter(Accountant accountant, int threads) {
+        this.accountant = accountant;
+        this.threads = Math.max(1, threads);
+    }
+
+    //Rows skipped by the last import because they could not be parsed
+    public long getRejectedRows() {
+        return rejectedRows.get();
+    }
+
+    //Importing a whole statement file and returning how many rows were added
+    public long importFile(Path file) throws IOException {
+        rejectedRows.set(0);
+        ExecutorService pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "statement-import");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Deque<Future<LedgerBatch>> inFlight = new ArrayDeque<>();
+        long imported = 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            Columns columns = null;
+            byte[] block = new byte[BLOCK_SIZE];
+            int filled = 0;
+            boolean eof = false;
+            while (!eof) {
+                if (filled == block.length) {
+                    // A single line longer than a block, make room for it
+                    block = Arrays.copyOf(block, block.length * 2);
+                }
+                int read = channel.read(ByteBuffer.wrap(block, filled, block.length - filled));
+                if (read < 0) {
+                    eof = true;
+                } else {
+                    filled += read;
+                }
+                int end = eof ? filled : lastLineEnd(block, filled);
+                if (end <= 0) {
+                    continue;
+                }
+                int start = 0;
+                if (columns == null) {
+                    int headerEnd = lineEnd(block, 0, end);
+                    columns = Columns.fromHeader(block, 0, headerEnd);
+                    start = Math.min(headerEnd + 1, end);
+                }
+                byte[] chunk = block;
+                int from = start, to = end;
+                Columns mapping = columns;
+                inFlight.add(pool.submit(() -> parse(chunk, from, to, mapping)));
+                while (inFlight.size() > threads * 2) {
+                    imported += hand(inFlight.poll());
+                }
+
+                // Carrying the unfinished last line over into a fresh block
+                byte[] next = new byte[Math.max(BLOCK_SIZE, (filled - end) * 2)];
+                System.arraycopy(block, end, next, 0, filled - end);
+                filled -= end;
+                block = next;
+            }
+            while (!inFlight.isEmpty()) {
+                imported += hand(inFlight.poll());
+            }
+            return imported;
+        } finally {
+            inFlight.forEach(future -> future.cancel(true));
+            pool.shutdownNow();
+        }
+    }
+
+    //Importing a statement held in memory, header line first, on the calling thread.
+    public long importBytes(byte[] bytes, int length) throws IOException {
+        rejectedRows.set(0);
+        int headerEnd = lineEnd(bytes, 0, length);
+        Columns columns = Columns.fromHeader(bytes, 0, headerEnd);
+        if (headerEnd >= length) {
+            return 0;
+        }
+        LedgerBatch batch = parse(bytes, headerEnd + 1, length, columns);
+        if (batch.size() > 0) {
+            accountant.addBatch(batch);
+        }
+        return batch.size();
+    }
+
+    //Waiting for a parsed block and adding it to the ledger
+    private long hand(Future<LedgerBatch> future) throws IOException {
+        try {
+            LedgerBatch batch = future.get();
+            accountant.addBatch(batch);
+            return batch.size();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Import interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Could not parse statement", e.getCause());
+        }
+    }
+
+    //Parsing the lines of bytes[from, to) into a batch
+    private LedgerBatch parse(byte[] bytes, int from, int to, Columns columns) {
+        LedgerBatch batch = new LedgerBatch();
+        int[] starts = new int[columns.width];
+        int[] ends = new int[columns.width];
+        CategoryDictionary categories = new CategoryDictionary();
+        long rejected = 0;
+        for (int line = from; line < to; ) {
+            int end = lineEnd(bytes, line, to);
+            int stop = end > line && bytes[end - 1] == '\r' ? end - 1 : end;
+            if (stop > line && !addRow(batch, bytes, line, stop, columns, starts, ends, categories)) {
+                rejected++;
+            }
+            line = end + 1;
+        }
+        rejectedRows.addAndGet(rejected);
+        return batch;
+    }
+
+    private static boolean addRow(LedgerBatch batch, byte[] bytes, int from, int to, Columns columns,
+                                  int[] starts, int[] ends, CategoryDictionary categories) {
+        if (split(bytes, from, to, starts, ends) < columns.width) {
+            return false;
+        }
+        int day = parseDay(bytes, starts[columns.date], ends[columns.date]);
+        if (day == Integer.MIN_VALUE) {
+            return false;
+        }
+        boolean isExpense;
+        long cents;
+        if (columns.amount >= 0) {
+            cents = Money.parse(bytes, starts[columns.amount], ends[columns.amount]);
+            if (cents == Long.MIN_VALUE) {
+                return false;
+            }
+            isExpense = cents < 0;
+            cents = Math.abs(cents);
+        } else {
+            long debit = Money.parse(bytes, starts[columns.debit], ends[columns.debit]);
+            long credit = Money.parse(bytes, starts[columns.credit], ends[columns.credit]);
+            isExpense = debit != Long.MIN_VALUE && debit != 0;
+            cents = isExpense ? Math.abs(debit) : credit;
+            if (cents == Long.MIN_VALUE) {
+                return false;
+            }
+        }
+        String category = category(bytes, columns.category, starts, ends, categories);
+        String name = text(bytes, columns.name, starts, ends);
+        String detail = text(bytes, columns.detail, starts, ends);
+        if (isExpense) {
+            batch.add(true, day, cents, RecordKind.expenseKindFor(category), category, name == null ? "" : name, detail);
+        } else {
+            byte kind = RecordKind.incomeKindFor(category);
+            // MiscellaneousIncome keeps its details as its category, as the income form does
+            if (kind == RecordKind.MISCELLANEOUS_INCOME && detail == null) {
+                detail = category;
+            }
+            batch.add(false, day, cents, kind, category, null, detail);
+        }
+        return true;
+    }
+
+    //Splitting one line into field bounds, quotes are kept in the bounds and removed by text(). Returns the field count.
+    private static int split(byte[] bytes, int from, int to, int[] starts, int[] ends) {
+        int field = 0;
+        int start = from;
+        boolean quoted = false;
+        for (int i = from; i < to; i++) {
+            byte b = bytes[i];
+            if (b == '"') {
+                quoted = !quoted;
+            } else if (b == ',' && !quoted) {
+                if (field < starts.length) {
+                    starts[field] = start;
+                    ends[field] = i;
+                }
+                field++;
+                start = i + 1;
+            }
+        }
+        if (field < starts.length) {
+            starts[field] = start;
+            ends[field] = to;
+        }
+        return field + 1;
+    }
+
+    //Reading a category through the block's dictionary, so every row of a category shares one String and only the
+    //first of them makes it
+    private static String category(byte[] bytes, int column, int[] starts, int[] ends,
+                                   CategoryDictionary categories) {
+        if (column < 0) {
+            return DEFAULT_CATEGORY;
+        }
+        int from = starts[column], to = ends[column];
+        while (from < to && bytes[from] == ' ') {
+            from++;
+        }
+        while (to > from && bytes[to - 1] == ' ') {
+            to--;
+        }
+        if (to - from >= 2 && bytes[from] == '"' && bytes[to - 1] == '"') {
+            from++;
+            to--;
+        }
+        for (int i = from; i < to; i++) {
+            if (bytes[i] == '"') {
+                // Escaped quotes, rare enough to read the slow way
+                String category = text(bytes, column, starts, ends);
+                return category == null ? DEFAULT_CATEGORY : category;
+            }
+        }
+        return from == to ? DEFAULT_CATEGORY : categories.get(categories.intern(bytes, from, to));
+    }
+
+    private static String text(byte[] bytes, int column, int[] starts, int[] ends) {
+        if (column < 0) {
+            return null;
+        }
+        int from = starts[column], to = ends[column];
+        while (from < to && bytes[from] == ' ') {
+            from++;
+        }
+        while (to > from && bytes[to - 1] == ' ') {
+            to--;
+        }
+        if (to - from >= 2 && bytes[from] == '"' && bytes[to - 1] == '"') {
+            String inner = new String(bytes, from + 1, to - from - 2, StandardCharsets.UTF_8);
+            return inner.isEmpty() ? null : inner.replace("\"\"", "\"");
+        }
+        return from == to ? null : new String(bytes, from, to - from, StandardCharsets.UTF_8);
+    }
+
+    //Reading yyyy-MM-dd straight from the bytes, Integer.MIN_VALUE if it is not a date
+    static int parseDay(byte[] bytes, int from, int to) {
+        while (from < to && (bytes[from] == ' ' || bytes[from] == '"')) {
+            from++;
+        }
+        while (to > from && (bytes[to - 1] == ' ' || bytes[to - 1] == '"')) {
+            to--;
+        }
+        if (to - from != 10 || bytes[from + 4] != '-' || bytes[from + 7] != '-') {
+            return Integer.MIN_VALUE;
+        }
+        int year = digits(bytes, from, 4);
+        int month = digits(bytes, from + 5, 2);
+        int dayOfMonth = digits(bytes, from + 8, 2);
+        if (year < 0 || month < 0 || dayOfMonth < 0) {
+            return Integer.MIN_VALUE;
+        }
+        try {
+            return (int) LocalDate.of(year, month, dayOfMonth).toEpochDay();
+        } catch (DateTimeException e) {
+            return Integer.MIN_VALUE;
+        }
+    }
+
+    private static int digits(byte[] bytes, int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static int lineEnd(byte[] bytes, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (bytes[i] == '\n') {
+                return i;
+            }
+        }
+        return to;
+    }
+
+    //Position just after the last complete line in bytes[0, length), 0 if there is none
+    private static int lastLineEnd(byte[] bytes, int length) {
+        for (int i = length - 1; i >= 0; i--) {
+            if (bytes[i] == '\n') {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    // Positions of the known columns in the header, -1 for a column the file does not have
+    private static final class Columns {
+        int width;
+        int date = -1;
+        int amount = -1;
+        int debit = -1;
+        int credit = -1;
+        int category = -1;
+        int name = -1;
+        int detail = -1;
+
+        static Columns fromHeader(byte[] bytes, int from, int to) throws IOException {
+            // Skipping a UTF-8 byte order mark
+            if (to - from >= 3 && bytes[from] == (byte) 0xEF && bytes[from + 1] == (byte) 0xBB && bytes[from + 2] == (byte) 0xBF) {
+                from += 3;
+            }
+            String header = new String(bytes, from, to - from, StandardCharsets.UTF_8).trim();
+            String[] names = header.split(",");
+            Columns columns = new Columns();
+            columns.width = names.length;
+            for (int i = 0; i < names.length; i++) {
+                switch (names[i].replace("\"", "").trim().toLowerCase(Locale.ROOT)) {
+                    case "date":
+                        columns.date = i;
+                        break;
+                    case "amount":
+                        columns.amount = i;
+                        break;
+                    case "debit":
+                        columns.debit = i;
+                        break;
+                    case "credit":
+                        columns.credit = i;
+                        break;
+                    case "category":
+                        columns.category = i;
+                        break;
+                    case "name":
+                    case "description":
+                        columns.name = i;
+                        break;
+                    case "detail":
+                    case "details":
+                        columns.detail = i;
+                        break;
+                    default:
+                        break;
+                }
+            }
+            if (columns.date < 0 || (columns.amount < 0 && (columns.debit < 0 || columns.credit < 0))) {
+                throw new IOException("Statement header needs a date column and an amount or debit and credit columns: "
+                        + header);
+            }
+            return columns;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/**
+ * Small interning table that hands out dense int ids for strings. The ledger columns store these ids instead of
+ * the strings themselves, so a name or detail that repeats on thousands of rows is kept only once.
+ */
+
+package com.example.track2success;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+final class StringTable {
+
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> values = new ArrayList<>();
+
+    //Returning the id for a string, adding it if it has not been seen. Null is stored as -1.
+    int intern(String value) {
+        if (value == null) {
+            return -1;
+        }
+        Integer id = ids.get(value);
+        if (id == null) {
+            id = values.size();
+            ids.put(value, id);
+            values.add(value);
+        }
+        return id;
+    }
+
+    //Looking up an id without adding it, -1 if the string is unknown
+    int find(String value) {
+        Integer id = value == null ? null : ids.get(value);
+        return id == null ? -1 : id;
+    }
+
+    String get(int id) {
+        return id < 0 ? null : values.get(id);
+    }
+
+    int size() {
+        return values.size();
+    }
+
+    //Rough heap size, taking a string with its map entry and boxed id to be about 96 bytes
+    long estimatedBytes() {
+        return values.size() * 96L;
+    }
+
+    void writeTo(LedgerSnapshot.Output out) throws IOException {
+        out.putInt(values.size());
+        for (String value : values) {
+            out.putString(value);
+        }
+    }
+
+    static StringTable readFrom(ByteBuffer in) {
+        StringTable table = new StringTable();
+        int count = in.getInt();
+        for (int i = 0; i < count; i++) {
+            table.intern(LedgerSnapshot.readString(in));
+        }
+        return table;
+    }
+}
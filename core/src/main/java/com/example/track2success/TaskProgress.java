@@ -0,0 +1,25 @@
+/**
+ * Handed to long running ledger work (writing reports, importing statements) so it can say how far it has got and
+ * can stop early once the work is no longer wanted.
+ */
+
+package com.example.track2success;
+
+public interface TaskProgress {
+
+    // For callers that do not follow the progress and never cancel
+    TaskProgress NONE = new TaskProgress() {
+        @Override
+        public void update(long done, long total) {
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+    };
+
+    void update(long done, long total);
+
+    boolean isCancelled();
+}
@@ -0,0 +1,257 @@
+/**
+ * Date ordered index over one column set (the expenses or the incomes of an Accountant), used for questions about
+ * a date range.
+ */
+
+package com.example.track2success;
+
+import java.util.Arrays;
+
+final class TimeIndex {
+
+    // Changes kept aside before the sorted structures are folded again, at least, and the share of their size the
+    // changes may reach
+    private static final int MAX_PENDING = 8192;
+    private static final int PENDING_SHARE = 8;
+
+    private final LedgerColumns columns;
+    private final Rollup daily;
+    private boolean built;
+
+    // Sorted run of (day, id), and the unsorted recent adds
+    private int[] runDays = new int[0];
+    private long[] runIds = new long[0];
+    private int[] tailDays = new int[64];
+    private long[] tailIds = new long[64];
+    private int tailSize;
+    private final LongIntHashMap removed = new LongIntHashMap();
+
+    // Sorted days of the daily rollup with running totals: prefix[c][i] is the sum of category c before sumDays[i]
+    private int[] sumDays = new int[0];
+    private long[][] prefix = new long[0][];
+    private long[] totalPrefix = new long[1];
+    private int[] pendingDays = new int[64];
+    private short[] pendingCategories = new short[64];
+    private long[] pendingCents = new long[64];
+    private int pendingSize;
+
+    TimeIndex(LedgerColumns columns, Rollup daily) {
+        this.columns = columns;
+        this.daily = daily;
+    }
+
+    //Rough heap size of the sorted run, the recent adds and the prefix sums
+    synchronized long estimatedBytes() {
+        return runDays.length * 12L + tailDays.length * 12L + (long) sumDays.length * (prefix.length + 1) * 8;
+    }
+
+    //Telling the index about a new record
+    void added(long id, int day, short category, long cents) {
+        if (!built) {
+            return;
+        }
+        if (tailSize == tailDays.length) {
+            tailDays = Arrays.copyOf(tailDays, tailSize * 2);
+            tailIds = Arrays.copyOf(tailIds, tailSize * 2);
+        }
+        tailDays[tailSize] = day;
+        tailIds[tailSize++] = id;
+        pending(day, category, cents);
+    }
+
+    //Telling the index a record has been removed
+    void removed(long id, int day, short category, long cents) {
+        if (!built) {
+            return;
+        }
+        removed.put(id, 1);
+        pending(day, category, -cents);
+    }
+
+    private void pending(int day, short category, long cents) {
+        if (pendingSize == pendingDays.length) {
+            pendingDays = Arrays.copyOf(pendingDays, pendingSize * 2);
+            pendingCategories = Arrays.copyOf(pendingCategories, pendingSize * 2);
+            pendingCents = Arrays.copyOf(pendingCents, pendingSize * 2);
+        }
+        pendingDays[pendingSize] = day;
+        pendingCategories[pendingSize] = category;
+        pendingCents[pendingSize++] = cents;
+    }
+
+    //Sum of cents for days in [from, to], for one category or for all of them when category is negative
+    synchronized long sum(int from, int to, int category) {
+        prepare();
+        int lo = lowerBound(sumDays, sumDays.length, from);
+        int hi = lowerBound(sumDays, sumDays.length, to + 1);
+        long total;
+        if (category < 0) {
+            total = totalPrefix[hi] - totalPrefix[lo];
+        } else {
+            total = category < prefix.length ? prefix[category][hi] - prefix[category][lo] : 0;
+        }
+        for (int i = 0; i < pendingSize; i++) {
+            if (pendingDays[i] >= from && pendingDays[i] <= to && (category < 0 || pendingCategories[i] == category)) {
+                total += pendingCents[i];
+            }
+        }
+        return total;
+    }
+
+    //Sums of cents for days in [from, to] of every category at once, indexed by category id
+    synchronized long[] sums(int from, int to) {
+        prepare();
+        int lo = lowerBound(sumDays, sumDays.length, from);
+        int hi = lowerBound(sumDays, sumDays.length, to + 1);
+        long[] totals = new long[daily.categoryCount()];
+        for (int category = 0; category < prefix.length; category++) {
+            totals[category] = prefix[category][hi] - prefix[category][lo];
+        }
+        for (int i = 0; i < pendingSize; i++) {
+            if (pendingDays[i] >= from && pendingDays[i] <= to) {
+                totals[pendingCategories[i]] += pendingCents[i];
+            }
+        }
+        return totals;
+    }
+
+    //Ids of the records dated in [from, to], in date order
+    synchronized long[] idsBetween(int from, int to) {
+        prepare();
+        int lo = lowerBound(runDays, runDays.length, from);
+        int hi = lowerBound(runDays, runDays.length, to + 1);
+
+        // Recent adds in range, sorted the same way as the run
+        long[] recentKeys = new long[tailSize];
+        int recentSize = 0;
+        for (int i = 0; i < tailSize; i++) {
+            if (tailDays[i] >= from && tailDays[i] <= to && removed.get(tailIds[i]) < 0) {
+                recentKeys[recentSize++] = (long) tailDays[i] << 32 | i;
+            }
+        }
+        Arrays.sort(recentKeys, 0, recentSize);
+
+        long[] result = new long[hi - lo + recentSize];
+        int count = 0;
+        int r = 0;
+        for (int i = lo; i < hi; i++) {
+            while (r < recentSize && (int) (recentKeys[r] >> 32) < runDays[i]) {
+                result[count++] = tailIds[(int) recentKeys[r++]];
+            }
+            if (removed.get(runIds[i]) < 0) {
+                result[count++] = runIds[i];
+            }
+        }
+        while (r < recentSize) {
+            result[count++] = tailIds[(int) recentKeys[r++]];
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+
+    //Building on first use, and folding recent changes in once they reach their share of what they are folded into
+    private void prepare() {
+        if (!built) {
+            buildRun();
+            buildSums();
+            built = true;
+            return;
+        }
+        int runLimit = Math.max(MAX_PENDING, runDays.length / PENDING_SHARE);
+        if (tailSize > runLimit || removed.size() > runLimit) {
+            mergeRun();
+        }
+        if (pendingSize > Math.max(MAX_PENDING, sumDays.length * (prefix.length + 1) / PENDING_SHARE)) {
+            buildSums();
+        }
+    }
+
+    //Folding the recent adds into the run and dropping the removed ids in one pass over the run.
+    private void mergeRun() {
+        long[] recentKeys = new long[tailSize];
+        int recentSize = 0;
+        for (int i = 0; i < tailSize; i++) {
+            if (removed.get(tailIds[i]) < 0) {
+                recentKeys[recentSize++] = (long) tailDays[i] << 32 | i;
+            }
+        }
+        Arrays.sort(recentKeys, 0, recentSize);
+        int[] days = new int[runDays.length + recentSize];
+        long[] ids = new long[days.length];
+        int count = 0;
+        int r = 0;
+        for (int i = 0; i < runDays.length; i++) {
+            while (r < recentSize && (int) (recentKeys[r] >> 32) < runDays[i]) {
+                int tail = (int) recentKeys[r++];
+                days[count] = tailDays[tail];
+                ids[count++] = tailIds[tail];
+            }
+            if (removed.get(runIds[i]) < 0) {
+                days[count] = runDays[i];
+                ids[count++] = runIds[i];
+            }
+        }
+        while (r < recentSize) {
+            int tail = (int) recentKeys[r++];
+            days[count] = tailDays[tail];
+            ids[count++] = tailIds[tail];
+        }
+        runDays = count == days.length ? days : Arrays.copyOf(days, count);
+        runIds = count == ids.length ? ids : Arrays.copyOf(ids, count);
+        tailSize = 0;
+        removed.clear();
+    }
+
+    private void buildRun() {
+        int size = columns.size();
+        long[] keys = new long[size];
+        for (int row = 0; row < size; row++) {
+            keys[row] = (long) columns.day(row) << 32 | row;
+        }
+        Arrays.sort(keys);
+        runDays = new int[size];
+        runIds = new long[size];
+        for (int i = 0; i < size; i++) {
+            int row = (int) keys[i];
+            runDays[i] = (int) (keys[i] >> 32);
+            runIds[i] = columns.id(row);
+        }
+        tailSize = 0;
+        removed.clear();
+    }
+
+    private void buildSums() {
+        int buckets = daily.bucketCount();
+        long[] keys = new long[buckets];
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            keys[bucket] = (long) daily.key(bucket) << 32 | bucket;
+        }
+        Arrays.sort(keys);
+        int categories = daily.categoryCount();
+        sumDays = new int[buckets];
+        prefix = new long[categories][buckets + 1];
+        totalPrefix = new long[buckets + 1];
+        for (int i = 0; i < buckets; i++) {
+            int bucket = (int) keys[i];
+            sumDays[i] = (int) (keys[i] >> 32);
+            totalPrefix[i + 1] = totalPrefix[i] + daily.total(bucket);
+            for (int category = 0; category < categories; category++) {
+                prefix[category][i + 1] = prefix[category][i] + daily.categorySum(bucket, category);
+            }
+        }
+        pendingSize = 0;
+    }
+
+    //First position in sorted[0, length) holding a value >= key
+    private static int lowerBound(int[] sorted, int length, int key) {
+        int lo = 0, hi = length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sorted[mid] < key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+}
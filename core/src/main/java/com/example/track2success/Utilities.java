@@ -10,6 +10,10 @@ public class Utilities extends Expense {
 
     }
 
+    public String getUtilityType() {
+        return utilityType;
+    }
+
     @Override
     public String getDescription() {
         String baseDescription = super.getDescription();
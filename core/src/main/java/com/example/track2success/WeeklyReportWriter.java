@@ -0,0 +1,153 @@
+/**
+ * Writes the weekly report files from the Accountant's weekly rollups.
+ */
+
+package com.example.track2success;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+final class WeeklyReportWriter {
+
+    private static final DateTimeFormatter REPORT_DATE = DateTimeFormatter.ofPattern("dd MMM");
+
+    private final Rollup weeklyExpenses;
+    private final Rollup weeklyIncomes;
+    private final CategoryDictionary categories;
+
+    // The buckets behind the files written, each with the changes it was written at
+    private final List<int[]> written = new ArrayList<>();
+
+    WeeklyReportWriter(Rollup weeklyExpenses, Rollup weeklyIncomes, CategoryDictionary categories) {
+        this.weeklyExpenses = weeklyExpenses;
+        this.weeklyIncomes = weeklyIncomes;
+        this.categories = categories;
+    }
+
+    //Writing the report of every changed week into a directory and returning how many files were written
+    int write(Path directory, TaskProgress progress) throws IOException {
+        // Only weeks that still have expenses get a report, as before.
+        Map<String, Integer> latestByFile = new HashMap<>();
+        Map<String, List<int[]>> seenByFile = new HashMap<>();
+        for (int bucket = 0; bucket < weeklyExpenses.bucketCount(); bucket++) {
+            if (weeklyExpenses.rows(bucket) == 0) {
+                continue;
+            }
+            String filename = fileName(LocalDate.ofEpochDay(weeklyExpenses.key(bucket)));
+            latestByFile.merge(filename, bucket,
+                    (a, b) -> weeklyExpenses.key(a) >= weeklyExpenses.key(b) ? a : b);
+            if (isDirty(bucket)) {
+                int incomeBucket = weeklyIncomes.find(weeklyExpenses.key(bucket));
+                seenByFile.computeIfAbsent(filename, f -> new ArrayList<>()).add(new int[]{bucket,
+                        weeklyExpenses.changes(bucket), incomeBucket,
+                        incomeBucket < 0 ? 0 : weeklyIncomes.changes(incomeBucket)});
+            }
+        }
+        List<Map.Entry<String, Integer>> jobs = new ArrayList<>();
+        for (Map.Entry<String, Integer> file : latestByFile.entrySet()) {
+            if (seenByFile.containsKey(file.getKey())) {
+                jobs.add(file);
+            }
+        }
+        boolean[] done = new boolean[jobs.size()];
+        AtomicInteger count = new AtomicInteger();
+        progress.update(0, jobs.size());
+        try {
+            IntStream.range(0, jobs.size()).parallel().forEach(job -> {
+                if (progress.isCancelled()) {
+                    return;
+                }
+                try {
+                    writeWeek(directory.resolve(jobs.get(job).getKey()), jobs.get(job).getValue());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                done[job] = true;
+                progress.update(count.incrementAndGet(), jobs.size());
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        // Every dirty week behind a file that was written is up to date as of the changes it was read at
+        for (int job = 0; job < jobs.size(); job++) {
+            if (done[job]) {
+                written.addAll(seenByFile.get(jobs.get(job).getKey()));
+            }
+        }
+        return count.get();
+    }
+
+    //Marking the weeks written by write() as reported, unless they changed since they were read
+    void markWritten() {
+        for (int[] week : written) {
+            weeklyExpenses.markReported(week[0], week[1]);
+            if (week[2] >= 0) {
+                weeklyIncomes.markReported(week[2], week[3]);
+            }
+        }
+        written.clear();
+    }
+
+    private boolean isDirty(int expenseBucket) {
+        int incomeBucket = weeklyIncomes.find(weeklyExpenses.key(expenseBucket));
+        return weeklyExpenses.isDirty(expenseBucket) || (incomeBucket >= 0 && weeklyIncomes.isDirty(incomeBucket));
+    }
+
+    static String fileName(LocalDate weekStart) {
+        return "Weekly_Report_" + weekStart.format(REPORT_DATE) + ".txt";
+    }
+
+    private void writeWeek(Path file, int expenseBucket) throws IOException {
+        int week = weeklyExpenses.key(expenseBucket);
+        LocalDate weekStart = LocalDate.ofEpochDay(week);
+        LocalDate weekEnd = weekStart.plusDays(6);
+        StringBuilder report = new StringBuilder(256);
+        report.append("Weekly Report: ").append(weekStart.format(REPORT_DATE)).append(" - ")
+                .append(weekEnd.format(REPORT_DATE)).append("\n\n");
+        writeExpensesAndIncomes(report, expenseBucket, weeklyIncomes.find(week));
+
+        ByteBuffer bytes = StandardCharsets.UTF_8.encode(report.toString());
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+        }
+    }
+
+    //Writing grouped expenses and incomes of one week
+    private void writeExpensesAndIncomes(StringBuilder report, int expenseBucket, int incomeBucket) {
+        // Writing expenses grouped by category
+        report.append("Expenses:\n");
+        writeCategorySums(report, weeklyExpenses, expenseBucket);
+
+        // Writing incomes grouped by category
+        report.append("\nIncomes:\n");
+        writeCategorySums(report, weeklyIncomes, incomeBucket);
+    }
+
+    private void writeCategorySums(StringBuilder report, Rollup weekly, int bucket) {
+        if (bucket < 0) {
+            return;
+        }
+        for (int id = 0; id < categories.size(); id++) {
+            if (weekly.categoryRows(bucket, id) > 0) {
+                Money.appendDollars(report.append(categories.get(id)).append(": "), weekly.categorySum(bucket, id))
+                        .append('\n');
+            }
+        }
+    }
+}
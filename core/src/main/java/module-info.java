@@ -0,0 +1,7 @@
+module com.example.track2success {
+    requires jdk.httpserver;
+    requires jdk.jfr;
+
+
+    exports com.example.track2success;
+}
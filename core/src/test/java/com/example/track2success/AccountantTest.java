@@ -0,0 +1,339 @@
+package com.example.track2success;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class AccountantTest {
+
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+
+    @TempDir
+    Path directory;
+
+    private static Expense groceries(String name, double amount, LocalDate date, String category) {
+        return new Groceries(name, amount, date.toString(), category);
+    }
+
+    private static Income salary(double amount, LocalDate date) {
+        return new Salary(amount, date.toString(), "Salary");
+    }
+
+    //Every field a record keeps, one line per record
+    private static List<String> linesOf(List<?> records) {
+        List<String> lines = new ArrayList<>();
+        for (Object record : records) {
+            if (record instanceof Expense) {
+                Expense expense = (Expense) record;
+                lines.add(expense.getClass().getSimpleName() + " " + expense.getDescription() + " "
+                        + expense.getDate() + " " + expense.getCategory() + " " + expense.getCents());
+            } else {
+                Income income = (Income) record;
+                lines.add(income.getClass().getSimpleName() + " " + income.getDescription() + " "
+                        + income.getDate() + " " + income.getCategory() + " " + income.getCents());
+            }
+        }
+        return lines;
+    }
+
+    //Copying the files of a ledger as they are on disk right now, as a crash would leave them
+    private Path copyOf(Path ledger) throws IOException {
+        Path copy = Files.createDirectory(directory.resolve("copy" + System.nanoTime()));
+        try (Stream<Path> files = Files.list(ledger)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.copy(file, copy.resolve(file.getFileName()));
+            }
+        }
+        return copy;
+    }
+
+    @Test
+    void reopensFromTheSnapshotAndTheJournalAfterIt() throws IOException {
+        Path ledger = directory.resolve("ledger");
+        Accountant accountant = Accountant.open(ledger);
+        long firstId = accountant.addExpense(groceries("Milk", 2.5, START, "Groceries"));
+        accountant.addExpense(new Utilities("Power", 80, START.plusDays(3).toString(), "Electricity", "Utilities"));
+        accountant.addIncome(salary(2000, START.plusDays(4)));
+        accountant.snapshot();
+        // The tail: rows and a removal after the snapshot, only in the journal
+        accountant.addExpense(groceries("Bread, sliced", 3.99, START.plusDays(9), "Groceries"));
+        accountant.addIncome(new MiscellaneousIncome(12.5, START.plusDays(10).toString(), "Refund \"A\""));
+        assertTrue(accountant.remove(firstId));
+        accountant.sync();
+        List<String> expenses = linesOf(accountant.getExpenses());
+        List<String> incomes = linesOf(accountant.getIncomes());
+
+        Accountant reopened = Accountant.open(copyOf(ledger));
+        assertEquals(expenses, linesOf(reopened.getExpenses()));
+        assertEquals(incomes, linesOf(reopened.getIncomes()));
+        assertEquals(accountant.getDailySavings(), reopened.getDailySavings());
+        // Ids go on from where the ledger stopped, and the removed row stays removed
+        long nextId = reopened.addExpense(groceries("Eggs", 5, START.plusDays(11), "Groceries"));
+        assertTrue(nextId > firstId);
+        assertEquals(3, reopened.getExpenses().size());
+        reopened.close();
+        accountant.close();
+
+        Accountant closed = Accountant.open(ledger);
+        assertEquals(expenses, linesOf(closed.getExpenses()));
+        assertEquals(incomes, linesOf(closed.getIncomes()));
+        closed.close();
+    }
+
+    @Test
+    void writesOnlyTheWeeklyReportsThatChanged() throws IOException {
+        Accountant accountant = new Accountant();
+        accountant.addExpense(groceries("Milk", 2.5, START, "Groceries"));
+        accountant.addExpense(groceries("Milk", 2.5, START.plusWeeks(1), "Groceries"));
+        Path reports = Files.createDirectory(directory.resolve("reports"));
+
+        assertEquals(2, accountant.generateWeeklyReports(reports));
+        assertEquals(0, accountant.generateWeeklyReports(reports));
+        accountant.addIncome(salary(2000, START.plusWeeks(1).plusDays(1)));
+        assertEquals(1, accountant.generateWeeklyReports(reports));
+        assertTrue(Files.readString(reports.resolve(WeeklyReportWriter.fileName(START.plusWeeks(1).minusDays(1))))
+                .contains("Salary"));
+    }
+
+    @Test
+    void balancesMatchTheRecords() {
+        Random random = new Random(9);
+        Accountant accountant = new Accountant();
+        List<Expense> expenses = new ArrayList<>();
+        List<Long> expenseIds = new ArrayList<>();
+        List<Income> incomes = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            LocalDate date = START.plusDays(random.nextInt(800));
+            if (random.nextInt(4) == 0) {
+                Income income = salary((1 + random.nextInt(100_000)) / 100.0, date);
+                incomes.add(income);
+                accountant.addIncome(income);
+            } else {
+                Expense expense = groceries("Item", (1 + random.nextInt(10_000)) / 100.0, date, "Groceries");
+                expenses.add(expense);
+                expenseIds.add(accountant.addExpense(expense));
+            }
+        }
+        // Back-dated removals change every later balance
+        for (int i = 0; i < 200; i++) {
+            int index = random.nextInt(expenses.size());
+            if (expenses.get(index) != null) {
+                assertTrue(accountant.remove(expenseIds.get(index)));
+                expenses.set(index, null);
+            }
+        }
+
+        for (int k = 0; k < 50; k++) {
+            LocalDate day = START.plusDays(random.nextInt(820) - 10);
+            long balance = 0;
+            for (Income income : incomes) {
+                balance += LocalDate.parse(income.getDate()).isAfter(day) ? 0 : income.getCents();
+            }
+            for (Expense expense : expenses) {
+                balance -= expense == null || LocalDate.parse(expense.getDate()).isAfter(day) ? 0
+                        : expense.getCents();
+            }
+            assertEquals(balance, accountant.getBalance(day), "balance through " + day);
+            assertEquals(balance, (long) accountant.getCumulativeSavings(day.minusDays(3), day).get(day));
+        }
+    }
+
+    @Test
+    void keepsTheAddsOfManyThreadsAcrossSnapshots() throws Exception {
+        Path ledger = directory.resolve("ledger");
+        Accountant accountant = Accountant.open(ledger);
+        List<Thread> threads = new ArrayList<>();
+        List<Throwable> failures = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int thread = t;
+            threads.add(new Thread(() -> {
+                try {
+                    for (int i = 0; i < 5_000; i++) {
+                        accountant.addExpense(groceries("Item", 1, START.plusDays(i % 100), "Groceries"));
+                        if (thread == 0 && i % 1_000 == 999) {
+                            accountant.snapshot();
+                        }
+                    }
+                } catch (Throwable e) {
+                    synchronized (failures) {
+                        failures.add(e);
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(List.of(), failures);
+
+        // Without a sync or a query the last rows are still in the stripes, but their journal entries reach the
+        // disk with the journal's next group commit
+        int recovered = 0;
+        for (int attempt = 0; attempt < 100 && recovered < 20_000; attempt++) {
+            Thread.sleep(attempt == 0 ? 0 : 50);
+            Accountant reopened = Accountant.open(copyOf(ledger));
+            recovered = reopened.getExpenses().size();
+            reopened.close();
+        }
+        assertEquals(20_000, recovered);
+        assertEquals(20_000, accountant.getExpenses().size());
+        accountant.close();
+    }
+
+    @Test
+    void handsOutRecordsTheCallerMayChange() {
+        Accountant accountant = new Accountant();
+        accountant.addExpense(groceries("Milk", 2.5, START, "Groceries"));
+        accountant.addExpense(groceries("Bread", 3, START.plusDays(1), "Groceries"));
+
+        List<Expense> first = accountant.expensesBetween(START, START.plusDays(7), "Groceries");
+        List<String> lines = linesOf(first);
+        first.get(0).setAmount(1000);
+        first.get(0).setCategory("Changed");
+        first.remove(1);
+
+        List<Expense> again = accountant.expensesBetween(START, START.plusDays(7), "Groceries");
+        assertEquals(2, again.size());
+        assertEquals(lines, linesOf(again));
+    }
+
+    //The first day of the period holding a date, worked out with java.time
+    private static LocalDate periodStart(PeriodUnit unit, LocalDate date, DayOfWeek firstDayOfWeek) {
+        switch (unit) {
+            case DAY:
+                return date;
+            case WEEK:
+                return date.with(TemporalAdjusters.previousOrSame(firstDayOfWeek));
+            case MONTH:
+                return date.withDayOfMonth(1);
+            case QUARTER:
+                return date.withMonth((date.getMonthValue() - 1) / 3 * 3 + 1).withDayOfMonth(1);
+            default:
+                return date.withDayOfYear(1);
+        }
+    }
+
+    @Test
+    void addsUpSeriesPerPeriod() throws IOException {
+        Random random = new Random(23);
+        String[] categories = {"Groceries", "Utilities", "Entertainment"};
+        Accountant accountant = new Accountant();
+        List<Expense> expenses = new ArrayList<>();
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 3_000; i++) {
+            Expense expense = groceries("Item", (1 + random.nextInt(10_000)) / 100.0,
+                    START.plusDays(random.nextInt(1_100)), categories[random.nextInt(categories.length)]);
+            expenses.add(expense);
+            ids.add(accountant.addExpense(expense));
+        }
+        for (int i = 0; i < 300; i++) {
+            int index = random.nextInt(expenses.size());
+            if (expenses.get(index) != null) {
+                assertTrue(accountant.remove(ids.get(index)));
+                expenses.set(index, null);
+            }
+        }
+
+        for (DayOfWeek firstDayOfWeek : new DayOfWeek[]{DayOfWeek.SUNDAY, DayOfWeek.MONDAY, DayOfWeek.THURSDAY}) {
+            accountant.setFirstDayOfWeek(firstDayOfWeek);
+            for (int k = 0; k < 40; k++) {
+                PeriodUnit unit = PeriodUnit.values()[k % PeriodUnit.values().length];
+                LocalDate from = START.plusDays(random.nextInt(1_200) - 50);
+                LocalDate to = from.plusDays(random.nextInt(500));
+                String category = random.nextBoolean() ? null : categories[random.nextInt(categories.length)];
+                LocalDate first = periodStart(unit, from, firstDayOfWeek);
+                LocalDate last = periodStart(unit, to, firstDayOfWeek);
+                Map<LocalDate, Long> expected = new TreeMap<>();
+                for (Expense expense : expenses) {
+                    if (expense == null || category != null && !category.equals(expense.getCategory())) {
+                        continue;
+                    }
+                    LocalDate period = periodStart(unit, LocalDate.parse(expense.getDate()), firstDayOfWeek);
+                    if (!period.isBefore(first) && !period.isAfter(last)) {
+                        expected.merge(period, expense.getCents(), Long::sum);
+                    }
+                }
+                assertEquals(new ArrayList<>(expected.entrySet()),
+                        new ArrayList<>(accountant.getExpenseSeries(from, to, unit, category).entrySet()),
+                        unit + " from " + from + " to " + to + " weeks from " + firstDayOfWeek);
+            }
+        }
+    }
+
+    @Test
+    void projectsTheBalanceWithTheOccurrencesStillAhead() throws IOException {
+        LocalDate today = LocalDate.now();
+        Accountant accountant = new Accountant();
+        accountant.addExpense(groceries("Milk", 2.5, today.minusDays(3), "Groceries"));
+        Expense rent = new Utilities("Rent", 900, today.minusDays(45).toString(), "Rent", "Housing");
+        Recurrence monthly = new Recurrence(rent, PeriodUnit.MONTH, 1, null);
+        Recurrence biweekly = new Recurrence(salary(1500, today.minusDays(20)), PeriodUnit.WEEK, 2,
+                today.plusDays(200));
+        assertTrue(accountant.addRecurrence(monthly));
+        assertTrue(accountant.addRecurrence(biweekly));
+        assertEquals(List.of(monthly, biweekly), accountant.getRecurrences());
+
+        for (int days = -60; days <= 400; days += 7) {
+            LocalDate date = today.plusDays(days);
+            long expected = date.isBefore(today.minusDays(3)) ? 0 : -250;
+            for (long n = 0; !today.minusDays(45).plusMonths(n).isAfter(date); n++) {
+                expected -= 90_000;
+            }
+            for (long n = 0; !today.minusDays(20).plusWeeks(2 * n).isAfter(date)
+                    && !today.minusDays(20).plusWeeks(2 * n).isAfter(today.plusDays(200)); n++) {
+                expected += 150_000;
+            }
+            assertEquals(expected, accountant.getProjectedBalance(date), date.toString());
+        }
+        // Only the occurrences up to today are rows, the later ones are scheduled
+        assertEquals(3, accountant.getExpenses().size());
+        assertEquals(2, accountant.getIncomes().size());
+        assertEquals(2, accountant.getScheduledIncomes(today.plusDays(1), today.plusDays(30), null).size());
+    }
+
+    @Test
+    void replaysTheOccurrencesOfARecurrenceOnce() throws IOException {
+        LocalDate today = LocalDate.now();
+        Path ledger = directory.resolve("ledger");
+        Accountant accountant = Accountant.open(ledger);
+        Recurrence daily = new Recurrence(groceries("Bread", 3, today.plusDays(5), "Groceries"), PeriodUnit.DAY, 1,
+                null);
+        accountant.addRecurrence(daily);
+        byte[] noneAdded = Files.readAllBytes(ledger.resolve(Accountant.RECURRENCES_FILE));
+        assertEquals(5, accountant.materializeDue(today.plusDays(9)));
+
+        // A crash after the occurrences were journaled but before their counts were saved
+        Path crashed = copyOf(ledger);
+        Files.write(crashed.resolve(Accountant.RECURRENCES_FILE), noneAdded);
+        Accountant reopened = Accountant.open(crashed);
+        assertEquals(5, reopened.getExpenses().size());
+        assertEquals(0, reopened.materializeDue(today.plusDays(9)));
+        assertEquals(1, reopened.materializeDue(today.plusDays(10)));
+        reopened.close();
+        accountant.close();
+
+        // Once the journal is folded into a snapshot, the counts file carries them
+        Accountant closed = Accountant.open(crashed);
+        assertEquals(6, closed.getExpenses().size());
+        assertEquals(0, closed.materializeDue(today.plusDays(10)));
+        closed.close();
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.track2success;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class BudgetBookTest {
+
+    // A Sunday, so the weeks of the tests start on it
+    private static final LocalDate START = LocalDate.of(2024, 3, 3);
+
+    @TempDir
+    Path directory;
+
+    private static Expense spend(String category, long cents, LocalDate date) {
+        Expense expense = new Groceries("Item", 0, date.toString(), category);
+        expense.setCents(cents);
+        return expense;
+    }
+
+    @Test
+    void alertsOnceWhenAPeriodGoesOver() throws IOException {
+        Accountant accountant = new Accountant();
+        List<BudgetAlert> alerts = new ArrayList<>();
+        accountant.setBudgetListener(alerts::add);
+        BudgetRule rule = new BudgetRule("Entertainment", PeriodUnit.WEEK, 5_000);
+        assertTrue(accountant.addBudget(rule));
+        assertFalse(accountant.addBudget(new BudgetRule("Entertainment", PeriodUnit.WEEK, 5_000)));
+
+        accountant.addExpense(spend("Entertainment", 3_000, START));
+        accountant.addExpense(spend("Groceries", 9_000, START));
+        assertEquals(0, alerts.size());
+        long id = accountant.addExpense(spend("Entertainment", 3_000, START.plusDays(6)));
+        assertEquals(1, alerts.size());
+        assertEquals(rule, alerts.get(0).getRule());
+        assertEquals(START, alerts.get(0).getPeriodStart());
+        assertEquals(6_000, alerts.get(0).getSpentCents());
+
+        // Still over: no second alert until a remove brings the week back under
+        accountant.addExpense(spend("Entertainment", 1_000, START.plusDays(2)));
+        assertEquals(1, alerts.size());
+        assertTrue(accountant.remove(id));
+        assertEquals(List.of(), accountant.getOverBudget());
+        accountant.addExpense(spend("Entertainment", 2_000, START.plusDays(1)));
+        assertEquals(2, alerts.size());
+        assertEquals(6_000, alerts.get(1).getSpentCents());
+        // The next week has a budget of its own
+        accountant.addExpense(spend("Entertainment", 4_000, START.plusDays(7)));
+        assertEquals(2, alerts.size());
+    }
+
+    @Test
+    void listsPeriodsAlreadyOverWithoutAlerting() throws IOException {
+        Accountant accountant = new Accountant();
+        accountant.addExpense(spend("Rent", 150_000, START));
+        accountant.addExpense(spend("Groceries", 20_000, START.plusMonths(1)));
+        List<BudgetAlert> alerts = new ArrayList<>();
+        accountant.setBudgetListener(alerts::add);
+
+        accountant.addBudget(new BudgetRule(null, PeriodUnit.MONTH, 100_000));
+        assertEquals(0, alerts.size());
+        assertEquals(1, accountant.getOverBudget().size());
+        assertEquals(START.withDayOfMonth(1), accountant.getOverBudget().get(0).getPeriodStart());
+        accountant.addExpense(spend("Groceries", 90_000, START.plusMonths(1)));
+        assertEquals(1, alerts.size());
+        assertEquals(2, accountant.getOverBudget().size());
+        assertThrows(IllegalArgumentException.class, () -> new BudgetRule(null, PeriodUnit.DAY, -1));
+    }
+
+    @Test
+    void keepsItsRulesWithTheLedger() throws IOException {
+        Path ledger = directory.resolve("ledger");
+        Accountant accountant = Accountant.open(ledger);
+        BudgetRule weekly = new BudgetRule("Entertainment", PeriodUnit.WEEK, 5_000);
+        BudgetRule yearly = new BudgetRule(null, PeriodUnit.YEAR, 1_000_000);
+        accountant.addBudget(weekly);
+        accountant.addBudget(yearly);
+        accountant.addBudget(new BudgetRule("Groceries", PeriodUnit.DAY, 100));
+        assertTrue(accountant.removeBudget(new BudgetRule("Groceries", PeriodUnit.DAY, 100)));
+        accountant.close();
+
+        Accountant reopened = Accountant.open(ledger);
+        assertEquals(List.of(weekly, yearly), reopened.getBudgets());
+        reopened.close();
+    }
+
+    @Test
+    void findsTheSamePeriodsOverAsTheSeries() throws IOException {
+        Random random = new Random(24);
+        String[] categories = {"Groceries", "Utilities", "Entertainment"};
+        Accountant accountant = new Accountant();
+        List<BudgetRule> rules = new ArrayList<>();
+        for (PeriodUnit unit : PeriodUnit.values()) {
+            for (String category : new String[]{null, "Groceries", "Entertainment"}) {
+                long limit = 5_000L * (unit.ordinal() + 1) * (unit.ordinal() + 1) * (category == null ? 4 : 1);
+                rules.add(new BudgetRule(category, unit, limit));
+                accountant.addBudget(rules.get(rules.size() - 1));
+            }
+        }
+        List<BudgetAlert> alerts = new ArrayList<>();
+        accountant.setBudgetListener(alerts::add);
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 3_000; i++) {
+            if (i % 5 == 4) {
+                accountant.remove(ids.get(random.nextInt(ids.size())));
+            } else {
+                ids.add(accountant.addExpense(spend(categories[random.nextInt(categories.length)],
+                        1 + random.nextInt(3_000), START.plusDays(random.nextInt(400)))));
+            }
+        }
+
+        TreeSet<String> expected = new TreeSet<>();
+        for (BudgetRule rule : rules) {
+            Map<LocalDate, Long> series = accountant.getExpenseSeries(START, START.plusDays(400), rule.getPeriod(),
+                    rule.getCategory());
+            for (Map.Entry<LocalDate, Long> period : series.entrySet()) {
+                if (period.getValue() > rule.getLimitCents()) {
+                    expected.add(rule + " " + period.getKey() + " " + period.getValue());
+                }
+            }
+        }
+        TreeSet<String> over = new TreeSet<>();
+        for (BudgetAlert alert : accountant.getOverBudget()) {
+            over.add(alert.getRule() + " " + alert.getPeriodStart() + " " + alert.getSpentCents());
+        }
+        assertEquals(expected, over);
+        assertTrue(alerts.size() >= over.size());
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.track2success;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class LedgerExportTest {
+
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+
+    @TempDir
+    Path directory;
+
+    //Every field a record keeps, one line per record, sorted
+    private static List<String> linesOf(Accountant accountant) {
+        List<String> lines = new ArrayList<>();
+        for (Expense expense : accountant.getExpenses()) {
+            lines.add(expense.getClass().getSimpleName() + " " + expense.getName() + " " + expense.getDate() + " "
+                    + expense.getCategory() + " " + expense.getCents());
+        }
+        for (Income income : accountant.getIncomes()) {
+            lines.add(income.getClass().getSimpleName() + " " + income.getDate() + " " + income.getCategory() + " "
+                    + income.getCents());
+        }
+        Collections.sort(lines);
+        return lines;
+    }
+
+    //A ledger of random records over two years, more than one export window of them
+    private static Accountant randomLedger(int records) {
+        Random random = new Random(22);
+        String[] expenseCategories = {"Groceries", "Utilities", "Entertainment", "Rent, flat", "Say \"hi\""};
+        LedgerBatch batch = new LedgerBatch();
+        for (int i = 0; i < records; i++) {
+            int day = (int) START.toEpochDay() + random.nextInt(730);
+            if (random.nextInt(5) == 0) {
+                batch.add(false, day, 1 + random.nextInt(500_000), RecordKind.incomeKindFor("Salary"), "Salary",
+                        null, null);
+            } else {
+                String category = expenseCategories[random.nextInt(expenseCategories.length)];
+                batch.add(true, day, 1 + random.nextInt(20_000), RecordKind.expenseKindFor(category), category,
+                        "Item " + i, null);
+            }
+        }
+        Accountant accountant = new Accountant();
+        accountant.addBatch(batch);
+        return accountant;
+    }
+
+    @Test
+    void exportsRecordsThatImportAgain() throws IOException {
+        Accountant accountant = randomLedger(40_000);
+        Path file = directory.resolve("ledger.csv");
+
+        assertEquals(40_000, LedgerExport.forFile(accountant, LedgerExport.Content.RECORDS, file)
+                .writeTo(file, null, null));
+        Accountant imported = new Accountant();
+        StatementImporter importer = new StatementImporter(imported, 2);
+        assertEquals(40_000, importer.importFile(file));
+        assertEquals(0, importer.getRejectedRows());
+        assertEquals(linesOf(accountant), linesOf(imported));
+    }
+
+    @Test
+    void gzipsAndWritesJsonLinesOfARange() throws IOException {
+        Accountant accountant = randomLedger(20_000);
+        LocalDate from = START.plusDays(100);
+        LocalDate to = START.plusDays(400);
+        Path plain = directory.resolve("range.jsonl");
+        Path gzipped = directory.resolve("range.jsonl.gz");
+
+        long written = LedgerExport.forFile(accountant, LedgerExport.Content.RECORDS, plain).writeTo(plain, from, to);
+        assertEquals(written, LedgerExport.forFile(accountant, LedgerExport.Content.RECORDS, gzipped)
+                .writeTo(gzipped, from, to));
+        assertEquals(accountant.expensesBetween(from, to, null).size() + accountant.incomesBetween(from, to, null)
+                .size(), written);
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(gzipped))) {
+            assertArrayEquals(Files.readAllBytes(plain), in.readAllBytes());
+        }
+        List<String> lines = Files.readAllLines(plain, StandardCharsets.UTF_8);
+        assertEquals(written, lines.size());
+        assertTrue(lines.get(0).startsWith("{\"date\":\"" + from), lines.get(0));
+    }
+
+    @Test
+    void exportsWeeklyTotalsThatAddUpToTheLedger() throws IOException {
+        Accountant accountant = randomLedger(20_000);
+        Path file = directory.resolve("weeks.csv");
+        LedgerExport.forFile(accountant, LedgerExport.Content.WEEKLY_TOTALS, file).writeTo(file, null, null);
+
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertEquals("date,category,expenses,incomes", lines.get(0));
+        long expenses = 0;
+        long incomes = 0;
+        for (String line : lines.subList(1, lines.size())) {
+            int incomesAt = line.lastIndexOf(',');
+            int expensesAt = line.lastIndexOf(',', incomesAt - 1);
+            expenses += Money.parse(line, expensesAt + 1, incomesAt);
+            incomes += Money.parse(line, incomesAt + 1, line.length());
+            assertEquals(DayOfWeek.SUNDAY, LocalDate.parse(line.substring(0, 10)).getDayOfWeek());
+        }
+        LocalDate last = START.plusDays(800);
+        assertEquals(accountant.sumExpenses(START, last, null), expenses);
+        assertEquals(accountant.sumIncomes(START, last, null), incomes);
+    }
+}
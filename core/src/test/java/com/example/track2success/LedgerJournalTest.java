@@ -0,0 +1,128 @@
+package com.example.track2success;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class LedgerJournalTest {
+
+    @TempDir
+    Path directory;
+
+    // Collects what a replay hands back, one line per entry
+    private static final class Entries implements LedgerJournal.Handler {
+        final List<String> lines = new ArrayList<>();
+
+        @Override
+        public void add(byte op, long id, int day, long cents, byte kind, String category, String name,
+                        String detail) {
+            lines.add("add " + op + " " + id + " " + day + " " + cents + " " + kind + " " + category + " " + name + " "
+                    + detail);
+        }
+
+        @Override
+        public void remove(long id) {
+            lines.add("remove " + id);
+        }
+
+        @Override
+        public void occurrence(Recurrence recurrence, int day) {
+            lines.add("occurrence " + recurrence + " " + recurrence.indexFrom(day));
+        }
+    }
+
+    private Path writeEntries(int adds) throws IOException {
+        Path file = directory.resolve(Accountant.JOURNAL_FILE);
+        try (LedgerJournal journal = LedgerJournal.open(file, 0, 1, new Entries())) {
+            for (int id = 0; id < adds; id++) {
+                journal.logAdd(LedgerJournal.ADD_EXPENSE, id, 19_000 + id, 100L * id, (byte) 0, "Groceries",
+                        "item " + id, id % 2 == 0 ? null : "detail");
+            }
+            journal.logRemove(3);
+            journal.sync();
+        }
+        return file;
+    }
+
+    private static List<String> replay(Path file, long generation) throws IOException {
+        Entries entries = new Entries();
+        LedgerJournal.open(file, generation, 1, entries).close();
+        return entries.lines;
+    }
+
+    @Test
+    void replaysEveryEntryInOrder() throws IOException {
+        List<String> lines = replay(writeEntries(10), 0);
+
+        assertEquals(11, lines.size());
+        assertEquals("add 1 0 19000 0 0 Groceries item 0 null", lines.get(0));
+        assertEquals("add 1 9 19009 900 0 Groceries item 9 detail", lines.get(9));
+        assertEquals("remove 3", lines.get(10));
+    }
+
+    @Test
+    void cutsOffATornTailAndAppendsAfterTheLastGoodEntry() throws IOException {
+        Path file = writeEntries(10);
+        long size = Files.size(file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            // Half of the removal and nothing else: a crash in the middle of writing the last entry
+            channel.truncate(size - 5);
+        }
+
+        Entries entries = new Entries();
+        try (LedgerJournal journal = LedgerJournal.open(file, 0, 1, entries)) {
+            assertEquals(10, entries.lines.size());
+            assertEquals(size - 17, Files.size(file));
+            journal.logRemove(7);
+        }
+
+        List<String> lines = replay(file, 0);
+        assertEquals(11, lines.size());
+        assertEquals("remove 7", lines.get(10));
+    }
+
+    @Test
+    void stopsAtAnEntryWhoseChecksumDoesNotMatch() throws IOException {
+        Path file = writeEntries(10);
+        byte[] bytes = Files.readAllBytes(file);
+        // The last byte of the last add, which is its detail string
+        bytes[bytes.length - 18] ^= 1;
+        Files.write(file, bytes);
+
+        List<String> lines = replay(file, 0);
+
+        assertEquals(9, lines.size());
+        assertEquals("add 1 8 19008 800 0 Groceries item 8 null", lines.get(8));
+    }
+
+    @Test
+    void startsOverAJournalOlderThanTheSnapshot() throws IOException {
+        Path file = writeEntries(10);
+
+        assertEquals(0, replay(file, 1).size());
+        assertEquals(0, replay(file, 1).size());
+    }
+
+    @Test
+    void replaysAnOccurrenceAsAnAddAndItsRecurrence() throws IOException {
+        Path file = directory.resolve(Accountant.JOURNAL_FILE);
+        Recurrence rent = new Recurrence(true, (byte) 2, "Housing", "Rent", "Landlord", 90_000, 19_000, 20_000,
+                PeriodUnit.MONTH, 1);
+        try (LedgerJournal journal = LedgerJournal.open(file, 0, 1, new Entries())) {
+            journal.logOccurrence(7, rent.dayOf(3), rent);
+            journal.sync();
+        }
+
+        assertEquals(List.of("add 1 7 " + rent.dayOf(3) + " 90000 2 Housing Rent Landlord", "occurrence " + rent + " 3"),
+                replay(file, 0));
+    }
+}
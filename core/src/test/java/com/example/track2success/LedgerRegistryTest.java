@@ -0,0 +1,103 @@
+package com.example.track2success;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class LedgerRegistryTest {
+
+    @TempDir
+    Path directory;
+
+    private static long addMilk(Accountant accountant) {
+        return accountant.addExpense(new Groceries("Milk", 2.5, "2024-03-01", "Groceries"));
+    }
+
+    private static void deleteTree(Path root) throws IOException {
+        try (Stream<Path> files = Files.walk(root)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Test
+    void keepsLedgersOpenWithinTheBudget() throws IOException {
+        LedgerRegistry registry = new LedgerRegistry(directory, Long.MAX_VALUE);
+        registry.withLedger("a", LedgerRegistryTest::addMilk);
+        registry.withLedger("b", LedgerRegistryTest::addMilk);
+        registry.withLedger("a", accountant -> accountant.getExpenses().size());
+
+        assertEquals(List.of("b", "a"), registry.openTenants());
+        assertTrue(registry.residentBytes() > 0);
+        registry.close();
+        assertEquals(List.of(), registry.openTenants());
+    }
+
+    @Test
+    void reopensEvictedLedgersFromDisk() throws IOException {
+        LedgerRegistry registry = new LedgerRegistry(directory, 0);
+        for (int i = 0; i < 3; i++) {
+            registry.withLedger("household-1", LedgerRegistryTest::addMilk);
+            assertEquals(List.of(), registry.openTenants());
+        }
+        assertEquals(3, (int) registry.withLedger("household-1", accountant -> accountant.getExpenses().size()));
+        assertThrows(IllegalArgumentException.class, () -> registry.withLedger("../escape", accountant -> null));
+        registry.close();
+    }
+
+    @Test
+    void keepsTheOutcomeOfTheWorkWhenAnEvictedLedgerFailsToClose() throws IOException {
+        LedgerRegistry registry = new LedgerRegistry(directory, 0);
+        // The ledger's directory is gone by the time it is evicted, so saving its snapshot fails
+        long id = registry.withLedger("a", accountant -> {
+            long added = addMilk(accountant);
+            deleteTree(directory.resolve("a"));
+            return added;
+        });
+        assertTrue(id >= 0);
+
+        IOException failure = assertThrows(IOException.class, () -> registry.withLedger("b", accountant -> {
+            addMilk(accountant);
+            deleteTree(directory.resolve("b"));
+            throw new IOException("the work failed");
+        }));
+        assertEquals("the work failed", failure.getMessage());
+        assertEquals(1, failure.getSuppressed().length);
+        registry.close();
+    }
+
+    @Test
+    void servesManyTenantsFromManyThreads() throws Exception {
+        LedgerRegistry registry = new LedgerRegistry(directory, 1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            String tenant = "t" + i % 5;
+            futures.add(executor.submit(() -> registry.withLedger(tenant, LedgerRegistryTest::addMilk)));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        for (int t = 0; t < 5; t++) {
+            assertEquals(80, (int) registry.withLedger("t" + t, accountant -> accountant.getExpenses().size()));
+        }
+        registry.close();
+    }
+}
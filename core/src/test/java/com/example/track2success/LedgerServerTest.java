@@ -0,0 +1,133 @@
+package com.example.track2success;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class LedgerServerTest {
+
+    private static final String HEADER = "date,amount,category,name\n";
+
+    private Accountant accountant;
+    private LedgerServer server;
+
+    @BeforeEach
+    void start() throws IOException {
+        accountant = new Accountant();
+        server = LedgerServer.start(accountant, new InetSocketAddress("127.0.0.1", 0));
+    }
+
+    @AfterEach
+    void stop() {
+        server.stop();
+    }
+
+    // The status and the body of an answer
+    private static final class Answer {
+        final int status;
+        final String body;
+
+        Answer(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+
+    private Answer request(String method, String path, byte[] body) throws IOException {
+        URL url = new URL("http://127.0.0.1:" + server.getAddress().getPort() + path);
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod(method);
+        if (body != null) {
+            connection.setDoOutput(true);
+            connection.setFixedLengthStreamingMode(body.length);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body);
+            }
+        }
+        int status = connection.getResponseCode();
+        try (InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+            return new Answer(status, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    //A statement of one expense, its name padded so the whole body is the given number of bytes
+    private static byte[] statementOf(int bytes) {
+        byte[] start = (HEADER + "2024-03-01,-12.50,Groceries,").getBytes(StandardCharsets.US_ASCII);
+        byte[] body = Arrays.copyOf(start, bytes);
+        Arrays.fill(body, start.length, bytes - 1, (byte) 'x');
+        body[bytes - 1] = '\n';
+        return body;
+    }
+
+    @Test
+    void addsRecordsAndAnswersTotals() throws IOException {
+        Answer added = request("POST", "/records", (HEADER + "2024-03-01,-12.50,Groceries,Milk\n"
+                + "2024-03-02,2000,Salary,\n" + "not a date,-1,Groceries,Bread\n").getBytes(StandardCharsets.UTF_8));
+        assertEquals(200, added.status);
+        assertEquals("{\"added\":2,\"rejected\":1}", added.body);
+
+        Answer totals = request("GET", "/totals?from=2024-03-01&to=2024-03-31", null);
+        assertEquals(200, totals.status);
+        assertEquals("{\"from\":\"2024-03-01\",\"to\":\"2024-03-31\",\"expenses\":12.50,\"incomes\":2000.00,"
+                + "\"net\":1987.50}", totals.body);
+        assertEquals(200, request("GET", "/balance?date=2024-03-02", null).status);
+    }
+
+    @Test
+    void answersBadRequestsWithAClientError() throws IOException {
+        assertEquals(400, request("GET", "/totals?from=2024-03-01&to=tomorrow", null).status);
+        assertEquals(400, request("GET", "/balance", null).status);
+        assertEquals(400, request("POST", "/records", "no,columns\n".getBytes(StandardCharsets.UTF_8)).status);
+        assertEquals(404, request("GET", "/records/1", null).status);
+        assertEquals(405, request("DELETE", "/records", null).status);
+    }
+
+    @Test
+    void answersAStatementTheLedgerCannotTakeWithAConflict() throws IOException {
+        StringBuilder statement = new StringBuilder(HEADER);
+        for (int i = 0; i <= Short.MAX_VALUE + 1; i++) {
+            statement.append("2024-03-01,-1,Category ").append(i).append(",\n");
+        }
+        Answer answer = request("POST", "/records", statement.toString().getBytes(StandardCharsets.UTF_8));
+        assertEquals(409, answer.status);
+        assertTrue(answer.body.contains("Too many categories"), answer.body);
+        assertEquals(0, accountant.getExpenses().size());
+    }
+
+    @Test
+    void takesAStatementOfExactlyTheLargestSize() throws IOException {
+        assertEquals(200, request("POST", "/records", statementOf(LedgerServer.MAX_BODY)).status);
+        assertEquals(1, accountant.getExpenses().size());
+        assertEquals(413, request("POST", "/records", statementOf(LedgerServer.MAX_BODY + 1)).status);
+        assertEquals(1, accountant.getExpenses().size());
+    }
+
+    @Test
+    void gzipsOnlyWhenTheClientTakesIt() {
+        assertTrue(LedgerServer.acceptsGzip("gzip"));
+        assertTrue(LedgerServer.acceptsGzip("deflate, gzip;q=0.5"));
+        assertTrue(LedgerServer.acceptsGzip("*"));
+        assertTrue(LedgerServer.acceptsGzip("X-GZIP ; Q=1"));
+        assertFalse(LedgerServer.acceptsGzip(null));
+        assertFalse(LedgerServer.acceptsGzip("deflate"));
+        assertFalse(LedgerServer.acceptsGzip("gzip;q=0"));
+        assertFalse(LedgerServer.acceptsGzip("gzip;q=0.0, *"));
+        assertFalse(LedgerServer.acceptsGzip("*;q=0"));
+        assertFalse(LedgerServer.acceptsGzip("gzip;q=none"));
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.track2success;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class MoneyTest {
+
+    private static long parseBytes(String text) {
+        byte[] bytes = ("," + text + ",").getBytes(StandardCharsets.US_ASCII);
+        return Money.parse(bytes, 1, bytes.length - 1);
+    }
+
+    @Test
+    void readsAmountsAsCents() {
+        assertEquals(1250, Money.parse("12.5"));
+        assertEquals(-123_456, Money.parse("-1,234.56"));
+        assertEquals(700, Money.parse("$7"));
+        assertEquals(-350, Money.parse("-$3.50"));
+        assertEquals(350, Money.parse(" +$3.50 "));
+        assertEquals(123_456_789_00L, Money.parse("123,456,789"));
+        assertEquals(50, Money.parse(".5"));
+        assertEquals(1200, Money.parse("12."));
+        assertEquals(123_456, parseBytes("\"1,234.56\""));
+        assertEquals(-99, parseBytes("\"-0.99\" "));
+    }
+
+    @Test
+    void roundsTheThirdDecimalHalfAwayFromZero() {
+        assertEquals(1, Money.parse("0.005"));
+        assertEquals(-1, Money.parse("-0.005"));
+        assertEquals(0, Money.parse("0.0049"));
+        assertEquals(1000, Money.parse("9.999"));
+        assertEquals(-1000, Money.parse("-9.995"));
+    }
+
+    @Test
+    void rejectsAnythingThatIsNotOneAmount() {
+        for (String text : new String[]{"", " ", "$", "-", ".", "1 2", "1,2,3", "12,34", "1,2345", ",123", "1234,567",
+                "1,234,", "1.2.3", "1-", "--1", "$$1", "12a", "a12", "1.5x", "1.2,3", "1e5", "0x10"}) {
+            assertThrows(NumberFormatException.class, () -> Money.parse(text), text);
+            assertEquals(Long.MIN_VALUE, parseBytes(text), text);
+        }
+    }
+
+    @Test
+    void writesWhatItReads() {
+        Random random = new Random(20);
+        for (int i = 0; i < 10_000; i++) {
+            long cents = random.nextLong() / 1_000_000;
+            assertEquals(cents, Money.parse(Money.format(cents)));
+            assertEquals(cents, Money.parse(Money.appendDecimal(new StringBuilder(), cents)));
+        }
+        assertEquals("-$3.05", Money.format(-305));
+        assertEquals("-0.05", Money.appendDecimal(new StringBuilder(), -5).toString());
+        assertEquals("$0.00", Money.format(0));
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.track2success;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class QueryCacheTest {
+
+    private static QueryCache.Key key(int from, int to) {
+        return new QueryCache.Key(QueryCache.DAILY_TOTALS, QueryCache.EXPENSES, from, to, -1, 0);
+    }
+
+    @Test
+    void givesAnswersOutUntilTheirDaysChange() {
+        QueryCache cache = new QueryCache();
+        cache.put(key(0, 30), "January", 5, 1);
+
+        assertEquals("January", cache.get(key(0, 30), 5));
+        assertEquals("January", cache.get(key(0, 30), 3));
+        assertNull(cache.get(key(0, 31), 0));
+        // A change after the answer was worked out drops it
+        assertNull(cache.get(key(0, 30), 6));
+        assertNull(cache.get(key(0, 30), 0));
+        assertEquals(0, cache.elements());
+    }
+
+    @Test
+    void dropsTheLeastRecentlyUsedAnswers() {
+        QueryCache cache = new QueryCache();
+        for (int i = 0; i < 512; i++) {
+            cache.put(key(i, i), i, 1, 1);
+        }
+        cache.get(key(0, 0), 1);
+        cache.put(key(-1, -1), "new", 1, 1);
+
+        assertEquals(0, cache.get(key(0, 0), 1));
+        assertNull(cache.get(key(1, 1), 1));
+        assertEquals(512, cache.elements());
+        // An answer too large to be worth keeping is not kept, and large ones push out the rest
+        cache.put(key(-2, -2), "huge", 1, 1 << 17);
+        assertNull(cache.get(key(-2, -2), 1));
+        for (int i = 0; i < 4; i++) {
+            cache.put(key(-3 - i, -3 - i), "large", 1, 1 << 16);
+        }
+        assertEquals(1 << 18, cache.elements());
+        assertNull(cache.get(key(0, 0), 1));
+    }
+
+    @Test
+    void dayVersionsFindTheLatestChangeInARange() {
+        Random random = new Random(19);
+        DayVersions versions = new DayVersions();
+        long[] days = new long[4_000];
+        int base = -2_000;
+        for (long version = 1; version <= 3_000; version++) {
+            int day = base + random.nextInt(days.length);
+            versions.changed(day, version);
+            days[day - base] = version;
+
+            int from = base - 10 + random.nextInt(days.length + 20);
+            int to = from + random.nextInt(600);
+            long latest = 0;
+            for (int d = Math.max(from, base); d <= to && d - base < days.length; d++) {
+                latest = Math.max(latest, days[d - base]);
+            }
+            assertEquals(latest, versions.latestBetween(from, to), "days " + from + " to " + to);
+        }
+        assertEquals(3_000, versions.latest());
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.track2success;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDate;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class RecurrenceTest {
+
+    private static Recurrence every(LocalDate first, PeriodUnit unit, int every) {
+        return new Recurrence(true, (byte) 0, "Bills", null, null, 100, (int) first.toEpochDay(), Integer.MAX_VALUE,
+                unit, every);
+    }
+
+    private static LocalDate plus(LocalDate date, PeriodUnit unit, long count) {
+        switch (unit) {
+            case DAY:
+                return date.plusDays(count);
+            case WEEK:
+                return date.plusWeeks(count);
+            case MONTH:
+                return date.plusMonths(count);
+            case QUARTER:
+                return date.plusMonths(3 * count);
+            default:
+                return date.plusYears(count);
+        }
+    }
+
+    //The first occurrence on or after a day, by stepping through them
+    private static long bruteIndexFrom(LocalDate first, PeriodUnit unit, int every, LocalDate day) {
+        long n = 0;
+        while (plus(first, unit, n * every).isBefore(day)) {
+            n++;
+        }
+        return n;
+    }
+
+    @Test
+    void monthlyFromThe31stFallsOnEveryMonthEnd() {
+        Recurrence bill = every(LocalDate.of(2024, 1, 31), PeriodUnit.MONTH, 1);
+
+        assertEquals(LocalDate.of(2024, 2, 29), LocalDate.ofEpochDay(bill.dayOf(1)));
+        assertEquals(LocalDate.of(2024, 3, 31), LocalDate.ofEpochDay(bill.dayOf(2)));
+        assertEquals(LocalDate.of(2024, 4, 30), LocalDate.ofEpochDay(bill.dayOf(3)));
+        assertEquals(LocalDate.of(2025, 2, 28), LocalDate.ofEpochDay(bill.dayOf(13)));
+
+        assertEquals(1, bill.indexFrom((int) LocalDate.of(2024, 2, 29).toEpochDay()));
+        assertEquals(2, bill.indexFrom((int) LocalDate.of(2024, 3, 1).toEpochDay()));
+        assertEquals(2, bill.indexFrom((int) LocalDate.of(2024, 3, 31).toEpochDay()));
+        assertEquals(3, bill.indexFrom((int) LocalDate.of(2024, 4, 1).toEpochDay()));
+        assertEquals(4, bill.indexFrom((int) LocalDate.of(2024, 5, 1).toEpochDay()));
+    }
+
+    @Test
+    void yearlyFromALeapDayFallsOnTheLastOfFebruary() {
+        Recurrence renewal = every(LocalDate.of(2024, 2, 29), PeriodUnit.YEAR, 1);
+
+        assertEquals(LocalDate.of(2025, 2, 28), LocalDate.ofEpochDay(renewal.dayOf(1)));
+        assertEquals(LocalDate.of(2028, 2, 29), LocalDate.ofEpochDay(renewal.dayOf(4)));
+        assertEquals(1, renewal.indexFrom((int) LocalDate.of(2025, 2, 28).toEpochDay()));
+        assertEquals(2, renewal.indexFrom((int) LocalDate.of(2025, 3, 1).toEpochDay()));
+    }
+
+    @Test
+    void quarterlyFromTheEndOfAMonth() {
+        Recurrence rent = every(LocalDate.of(2023, 11, 30), PeriodUnit.QUARTER, 1);
+
+        assertEquals(LocalDate.of(2024, 2, 29), LocalDate.ofEpochDay(rent.dayOf(1)));
+        assertEquals(LocalDate.of(2024, 5, 30), LocalDate.ofEpochDay(rent.dayOf(2)));
+        assertEquals(2, rent.indexFrom((int) LocalDate.of(2024, 3, 1).toEpochDay()));
+    }
+
+    @Test
+    void nothingComesBeforeTheFirstDate() {
+        Recurrence pay = every(LocalDate.of(2024, 1, 5), PeriodUnit.WEEK, 2);
+
+        assertEquals(0, pay.indexFrom((int) LocalDate.of(2023, 6, 1).toEpochDay()));
+        assertEquals(0, pay.indexFrom((int) LocalDate.of(2024, 1, 5).toEpochDay()));
+        assertEquals(1, pay.indexFrom((int) LocalDate.of(2024, 1, 6).toEpochDay()));
+        assertEquals(LocalDate.of(2024, 1, 19), LocalDate.ofEpochDay(pay.dayOf(1)));
+    }
+
+    @Test
+    void matchesJavaTimeForRandomRecurrences() {
+        Random random = new Random(25);
+        for (int i = 0; i < 20_000; i++) {
+            PeriodUnit unit = PeriodUnit.values()[random.nextInt(PeriodUnit.values().length)];
+            int every = 1 + random.nextInt(4);
+            // Month ends are picked often, since that is where months of different lengths disagree
+            LocalDate first = LocalDate.of(1990 + random.nextInt(60), 1 + random.nextInt(12), 1);
+            first = random.nextBoolean() ? first.withDayOfMonth(first.lengthOfMonth())
+                    : first.withDayOfMonth(1 + random.nextInt(first.lengthOfMonth()));
+            Recurrence recurrence = every(first, unit, every);
+            long n = random.nextInt(200);
+            assertEquals(plus(first, unit, n * every), LocalDate.ofEpochDay(recurrence.dayOf(n)),
+                    "occurrence " + n + " of every " + every + " " + unit + " from " + first);
+            LocalDate day = first.plusDays(random.nextInt(3_000) - 100);
+            assertEquals(bruteIndexFrom(first, unit, every, day), recurrence.indexFrom((int) day.toEpochDay()),
+                    "first occurrence from " + day + " of every " + every + " " + unit + " from " + first);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.track2success;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class RollupTest {
+
+    @Test
+    void keepsTheTotalsOfEveryBucketAndCategory() {
+        Random random = new Random(2);
+        Rollup rollup = new Rollup();
+        Map<Integer, long[]> sums = new HashMap<>();
+        Map<Integer, int[]> rows = new HashMap<>();
+        long[] grandSums = new long[40];
+        int[] grandRows = new int[40];
+        for (int i = 0; i < 20_000; i++) {
+            int key = 19_000 + random.nextInt(500);
+            int category = random.nextInt(40);
+            long cents = random.nextInt(10_000);
+            // Taking back about a third of what was added, as a removal does
+            int count = random.nextInt(3) == 0 ? -1 : 1;
+            rollup.add(key, category, count * cents, count);
+            sums.computeIfAbsent(key, k -> new long[40])[category] += count * cents;
+            rows.computeIfAbsent(key, k -> new int[40])[category] += count;
+            grandSums[category] += count * cents;
+            grandRows[category] += count;
+        }
+
+        assertEquals(sums.size(), rollup.bucketCount());
+        for (Map.Entry<Integer, long[]> bucketSums : sums.entrySet()) {
+            int bucket = rollup.find(bucketSums.getKey());
+            assertEquals((int) bucketSums.getKey(), rollup.key(bucket));
+            long total = 0;
+            int totalRows = 0;
+            for (int category = 0; category < 40; category++) {
+                assertEquals(bucketSums.getValue()[category], rollup.categorySum(bucket, category));
+                assertEquals(rows.get(bucketSums.getKey())[category], rollup.categoryRows(bucket, category));
+                total += bucketSums.getValue()[category];
+                totalRows += rows.get(bucketSums.getKey())[category];
+            }
+            assertEquals(total, rollup.total(bucket));
+            assertEquals(totalRows, rollup.rows(bucket));
+        }
+        for (int category = 0; category < 40; category++) {
+            assertEquals(grandSums[category], rollup.grandSum(category));
+            assertEquals(grandRows[category], rollup.grandRows(category));
+        }
+    }
+
+    @Test
+    void findsOnlyKeysThatWereUsed() {
+        Rollup rollup = new Rollup();
+        rollup.add(100, 0, 500, 1);
+        rollup.add(-7, 3, 200, 1);
+
+        assertEquals(-1, rollup.find(101));
+        assertEquals(0, rollup.find(100));
+        assertEquals(1, rollup.find(-7));
+        assertEquals(0, rollup.categorySum(0, 3));
+        assertEquals(200, rollup.categorySum(1, 3));
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.track2success;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class SavingsTreeTest {
+
+    private static final int FIRST_DAY = 10_000;
+    private static final int DAYS = 3_000;
+
+    private static long bruteBalance(long[] net, int day) {
+        long sum = 0;
+        for (int i = 0; i < net.length && FIRST_DAY + i <= day; i++) {
+            sum += net[i];
+        }
+        return sum;
+    }
+
+    @Test
+    void matchesAPrefixSumUnderRandomUpdates() {
+        Random random = new Random(9);
+        SavingsTree tree = new SavingsTree();
+        long[] net = new long[DAYS];
+        for (int update = 0; update < 5_000; update++) {
+            // Starting in the middle so the window has to grow both ways
+            int day = update < 100 ? FIRST_DAY + DAYS / 2 + random.nextInt(20) : FIRST_DAY + random.nextInt(DAYS);
+            long cents = random.nextInt(20_001) - 10_000;
+            tree.add(day, cents);
+            net[day - FIRST_DAY] += cents;
+            if (update % 50 == 0) {
+                int query = FIRST_DAY - 10 + random.nextInt(DAYS + 20);
+                assertEquals(bruteBalance(net, query), tree.balanceThrough(query), "balance through " + query);
+            }
+        }
+        for (int day = FIRST_DAY - 1; day <= FIRST_DAY + DAYS; day += 7) {
+            assertEquals(bruteBalance(net, day), tree.balanceThrough(day), "balance through " + day);
+        }
+    }
+
+    @Test
+    void balancesWalkTheDaysAfterOnePrefix() {
+        Random random = new Random(4);
+        SavingsTree tree = new SavingsTree();
+        long[] net = new long[DAYS];
+        for (int update = 0; update < 1_000; update++) {
+            int day = FIRST_DAY + random.nextInt(DAYS);
+            long cents = random.nextInt(5_000) - 2_500;
+            tree.add(day, cents);
+            net[day - FIRST_DAY] += cents;
+        }
+
+        int from = FIRST_DAY - 5;
+        int to = FIRST_DAY + DAYS + 5;
+        long[] expected = new long[to - from + 1];
+        for (int day = from; day <= to; day++) {
+            expected[day - from] = bruteBalance(net, day);
+        }
+        assertArrayEquals(expected, tree.balances(from, to));
+    }
+
+    @Test
+    void isZeroBeforeAnything() {
+        SavingsTree tree = new SavingsTree();
+
+        assertEquals(0, tree.balanceThrough(FIRST_DAY));
+        tree.add(FIRST_DAY, 500);
+        assertEquals(0, tree.balanceThrough(FIRST_DAY - 1));
+        assertEquals(500, tree.balanceThrough(Integer.MAX_VALUE - 1));
+    }
+}
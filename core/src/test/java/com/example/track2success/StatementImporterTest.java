@@ -0,0 +1,102 @@
+package com.example.track2success;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class StatementImporterTest {
+
+    @TempDir
+    Path directory;
+
+    private long importText(Accountant accountant, String statement) throws IOException {
+        Path file = directory.resolve("statement.csv");
+        Files.write(file, statement.getBytes(StandardCharsets.UTF_8));
+        return new StatementImporter(accountant, 2).importFile(file);
+    }
+
+    @Test
+    void readsASignedAmountColumn() throws IOException {
+        Accountant accountant = new Accountant();
+        StatementImporter importer = new StatementImporter(accountant, 2);
+        Path file = directory.resolve("statement.csv");
+        Files.write(file, ("Category,Date,Amount,Name\n"
+                + "Groceries,2024-03-01,-12.50,\"Milk, eggs\"\n"
+                + "Salary,2024-03-02,2000,\n"
+                + "Utilities,2024-03-03,-80,Power\r\n"
+                + "Groceries,not a date,-1,Bread\n"
+                + "Groceries,2024-03-04,twelve,Bread\n").getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(3, importer.importFile(file));
+        assertEquals(2, importer.getRejectedRows());
+        List<Expense> expenses = accountant.getExpenses();
+        assertEquals(2, expenses.size());
+        assertTrue(expenses.get(0) instanceof Groceries);
+        assertEquals("Milk, eggs", expenses.get(0).getName());
+        assertEquals(1250, expenses.get(0).getCents());
+        assertTrue(expenses.get(1) instanceof Utilities);
+        assertEquals(8000, expenses.get(1).getCents());
+        assertEquals(1, accountant.getIncomes().size());
+        assertTrue(accountant.getIncomes().get(0) instanceof Salary);
+        assertEquals(200_000, accountant.getIncomes().get(0).getCents());
+    }
+
+    @Test
+    void readsDebitAndCreditColumns() throws IOException {
+        Accountant accountant = new Accountant();
+
+        assertEquals(3, importText(accountant, "date,debit,credit,category\n"
+                + "2024-03-01,25.00,,Entertainment\n"
+                + "2024-03-02,,150.25,Salary\n"
+                + "2024-03-03,0,0,Salary\n"));
+        assertEquals(1, accountant.getExpenses().size());
+        assertEquals(2500, accountant.getExpenses().get(0).getCents());
+        assertEquals(2, accountant.getIncomes().size());
+        assertEquals(15025, accountant.getIncomes().get(0).getCents());
+    }
+
+    @Test
+    void readsAZeroAmountAsAnIncome() throws IOException {
+        Accountant accountant = new Accountant();
+
+        assertEquals(1, importText(accountant, "date,amount,category\n2024-03-01,0.00,Salary\n"));
+        assertEquals(0, accountant.getExpenses().size());
+        assertEquals(1, accountant.getIncomes().size());
+    }
+
+    @Test
+    void refusesAStatementWithoutTheColumnsItNeeds() {
+        assertThrows(IOException.class, () -> importText(new Accountant(), "date,category\n2024-03-01,Salary\n"));
+    }
+
+    @Test
+    void leavesTheLedgerAloneWhenABatchBringsTooManyCategories() {
+        Accountant accountant = new Accountant();
+        for (int i = 0; i < Short.MAX_VALUE - 50; i++) {
+            accountant.addExpense(new Groceries("Item", 1, "2024-03-01", "Category " + i));
+        }
+        int rows = accountant.getExpenses().size();
+        LedgerBatch batch = new LedgerBatch();
+        for (int i = 0; i < 100; i++) {
+            batch.add(true, 19_800, 100, RecordKind.expenseKindFor("Groceries"), "New " + i, "Item", null);
+        }
+
+        assertThrows(IllegalStateException.class, () -> accountant.addBatch(batch));
+        assertEquals(rows, accountant.getExpenses().size());
+        assertEquals(Short.MAX_VALUE - 50, accountant.getTotalExpensesByCategory().size());
+
+        LedgerBatch fits = new LedgerBatch();
+        fits.add(true, 19_800, 100, RecordKind.expenseKindFor("Groceries"), "New", "Item", null);
+        accountant.addBatch(fits);
+        assertEquals(rows + 1, accountant.getExpenses().size());
+    }
+}
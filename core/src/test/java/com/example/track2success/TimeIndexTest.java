@@ -0,0 +1,67 @@
+package com.example.track2success;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class TimeIndexTest {
+
+    private static final int FIRST_DAY = 19_000;
+
+    //Enough adds and removes to fold the tail and the removed ids into the run several times over
+    @Test
+    void answersRangeQueriesLikeAScanOverTheRecords() {
+        Random random = new Random(3);
+        Accountant accountant = new Accountant();
+        Map<Long, long[]> live = new LinkedHashMap<>();
+        List<Long> ids = new ArrayList<>();
+        for (int step = 0; step < 60_000; step++) {
+            int operation = random.nextInt(10);
+            if (operation < 6 || ids.isEmpty()) {
+                int day = FIRST_DAY + random.nextInt(400);
+                int category = random.nextInt(5);
+                long cents = 1 + random.nextInt(1000);
+                long id = accountant.addExpense(new Groceries("Item", cents / 100.0,
+                        LocalDate.ofEpochDay(day).toString(), "C" + category));
+                live.put(id, new long[]{day, cents, category});
+                ids.add(id);
+            } else if (operation < 9) {
+                int index = random.nextInt(ids.size());
+                long id = ids.get(index);
+                ids.set(index, ids.get(ids.size() - 1));
+                ids.remove(ids.size() - 1);
+                assertTrue(accountant.remove(id));
+                live.remove(id);
+            } else {
+                int from = FIRST_DAY + random.nextInt(400);
+                int to = from + random.nextInt(60);
+                int category = random.nextBoolean() ? -1 : random.nextInt(5);
+                long expected = 0;
+                int count = 0;
+                for (long[] record : live.values()) {
+                    if (record[0] >= from && record[0] <= to && (category < 0 || record[2] == category)) {
+                        expected += record[1];
+                        count++;
+                    }
+                }
+                LocalDate first = LocalDate.ofEpochDay(from);
+                LocalDate last = LocalDate.ofEpochDay(to);
+                String name = category < 0 ? null : "C" + category;
+                assertEquals(expected, accountant.sumExpenses(first, last, name));
+                List<Expense> expenses = accountant.expensesBetween(first, last, name);
+                assertEquals(count, expenses.size());
+                for (int i = 1; i < expenses.size(); i++) {
+                    assertTrue(expenses.get(i - 1).getDate().compareTo(expenses.get(i).getDate()) <= 0);
+                }
+            }
+        }
+    }
+}